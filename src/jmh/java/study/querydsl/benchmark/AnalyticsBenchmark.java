@@ -0,0 +1,125 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberAgeAvgDto;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.MemberAnalyticsRepository;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 팀 별 분석 쿼리: JPQL 상관 서브쿼리 (회원마다 같은 팀을 다시 읽는다) vs Querydsl SQL 윈도우 함수 (한 번 스캔)
+ * 상관 서브쿼리는 회원 수 x 팀 크기 만큼 읽으므로 회원 수를 작게 둔다.
+ */
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+
+    @Param({"10000"})
+    int members;
+
+    @Param({"10", "100"})
+    int teams;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory queryFactory;
+    MemberAnalyticsRepository memberAnalyticsRepository;
+
+    final QMember memberSub = new QMember("memberSub");
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, members, teams);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        memberAnalyticsRepository = context.getBean(MemberAnalyticsRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // 팀 별 최고령 회원
+    @Benchmark
+    public List<Member> maxAgePerTeamJpql() {
+        return queryFactory.selectFrom(member)
+                .where(member.age.eq(
+                        JPAExpressions.select(memberSub.age.max())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberRankDto> maxAgePerTeamWindow() {
+        return memberAnalyticsRepository.rankWithinTeam(1);
+    }
+
+    // 팀 평균 나이 이상인 회원
+    @Benchmark
+    public List<Member> aboveTeamAverageJpql() {
+        return queryFactory.selectFrom(member)
+                .where(member.age.goe(
+                        JPAExpressions.select(memberSub.age.avg())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team))))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> aboveTeamAverageWindow() {
+        return memberAnalyticsRepository.aboveTeamAverage();
+    }
+
+    // 팀 별 나이 순 상위 3 명: 나보다 앞 순서인 같은 팀 회원이 3 명 미만
+    @Benchmark
+    public List<Member> top3PerTeamJpql() {
+        return queryFactory.selectFrom(member)
+                .where(JPAExpressions.select(memberSub.count())
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team),
+                                memberSub.age.gt(member.age)
+                                        .or(memberSub.age.eq(member.age).and(memberSub.id.lt(member.id))))
+                        .lt(3L))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberRankDto> top3PerTeamWindow() {
+        return memberAnalyticsRepository.topNPerTeam(3);
+    }
+
+    // 팀 안에서 나이 순으로 누적한 평균
+    @Benchmark
+    public List<Tuple> runningAverageJpql() {
+        return queryFactory
+                .select(member.id,
+                        JPAExpressions.select(memberSub.age.avg())
+                                .from(memberSub)
+                                .where(memberSub.team.eq(member.team),
+                                        memberSub.age.lt(member.age)
+                                                .or(memberSub.age.eq(member.age).and(memberSub.id.loe(member.id)))))
+                .from(member)
+                .where(member.team.isNotNull())
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberAgeAvgDto> runningAverageWindow() {
+        return memberAnalyticsRepository.runningAverageAge();
+    }
+}
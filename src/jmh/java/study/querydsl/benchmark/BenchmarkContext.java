@@ -0,0 +1,84 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 (내장 H2 메모리 DB, 웹 서버 없음)
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * 설정은 커맨드 라인 인자로 넘겨서 application.yml 보다 우선하게 한다.
+     * (SpringApplicationBuilder.properties 는 기본값이라 application.yml 의 spring.profiles.active=local,
+     *  datasource url 이 이긴다 -> InitMember 가 데이터를 넣고 tcp DB 로 붙는다)
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        List<String> args = new ArrayList<>();
+        for (String property : Arrays.asList(
+                "spring.profiles.active=bench",
+                "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "spring.jpa.properties.hibernate.use_sql_comments=false",
+                "logging.level.org.hibernate.SQL=warn",
+                "decorator.datasource.p6spy.enable-logging=false",
+                // 쿼리 방식 자체를 비교하기 위해 count / 결과 캐시는 끈다.
+                "querydsl.count-cache.max-size=0",
+                "querydsl.result-cache.max-entries=0")) {
+            args.add("--" + property);
+        }
+        for (String property : extraProperties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * teams 개 팀에 members 명을 나눠서 저장 (member{i}, 나이 i % 100)
+     */
+    public static void seed(ConfigurableApplicationContext context, int members, int teams) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        int chunk = 1000;
+
+        Long[] teamIds = tx.execute(status -> {
+            Long[] ids = new Long[teams];
+            for (int i = 0; i < teams; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                ids[i] = team.getId();
+            }
+            return ids;
+        });
+
+        for (int start = 0; start < members; start += chunk) {
+            int from = start;
+            int to = Math.min(members, start + chunk);
+            tx.execute(status -> {
+                for (int i = from; i < to; i++) {
+                    Team team = em.getReference(Team.class, teamIds[i % teams]);
+                    em.persist(new Member("member" + i, i % 100, team));
+                }
+                em.flush();
+                em.clear();
+                return null;
+            });
+        }
+    }
+}
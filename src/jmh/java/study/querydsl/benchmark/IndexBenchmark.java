@@ -0,0 +1,80 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+
+/**
+ * 검색 조건별 인덱스 유무 비교
+ * - indexed=false 면 시드 후 Member / Team 의 보조 인덱스를 지운다.
+ */
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+
+    @Param({"1000000"})
+    int members;
+
+    @Param({"true", "false"})
+    boolean indexed;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberSearchCondition byUsername;
+    MemberSearchCondition byTeamName;
+    MemberSearchCondition byAgeRange;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, members, 1000);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        if (!indexed) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            jdbc.execute("drop index idx_member_username");
+            jdbc.execute("drop index idx_member_age");
+            jdbc.execute("drop index idx_team_name");
+            // team_id 는 FK 제약이 쓰는 인덱스라 남긴다.
+        }
+
+        byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member" + (members / 2));
+
+        byTeamName = new MemberSearchCondition();
+        byTeamName.setTeamName("team7");
+
+        byAgeRange = new MemberSearchCondition();
+        byAgeRange.setAgeGoe(40);
+        byAgeRange.setAgeLoe(40);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> username() {
+        return memberJpaRepository.searchByBuilder(byUsername);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamName() {
+        return memberJpaRepository.searchByBuilder(byTeamName);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> ageRange() {
+        return memberJpaRepository.searchByBuilder(byAgeRange);
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+/**
+ * searchPageComplex 페이징 방식 비교 (querydsl.page-mode.search-page-complex)
+ * - two-queries : content + count
+ * - window-count : count(*) over() 한 번
+ * - concurrent-count : count 를 별도 커넥션에서 동시에
+ */
+@State(Scope.Benchmark)
+public class PageModeBenchmark {
+
+    @Param({"100000", "1000000"})
+    int members;
+
+    @Param({"two-queries", "window-count", "concurrent-count"})
+    String pageMode;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+    PageRequest pageRequest;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("querydsl.page-mode.search-page-complex=" + pageMode);
+        BenchmarkContext.seed(context, members, 10);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        pageRequest = PageRequest.of(100, 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+}
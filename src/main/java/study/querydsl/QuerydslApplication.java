@@ -1,11 +1,20 @@
 package study.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.repository.support.ChangeNotifyingJPAQueryFactory;
+import study.querydsl.repository.support.DataChangeNotifier;
+import study.querydsl.repository.support.QueryMetrics;
 
 import javax.persistence.EntityManager;
+import javax.sql.DataSource;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -15,7 +24,15 @@ public class QuerydslApplication {
     }
 
     @Bean
-    JPAQueryFactory jpaQueryFactory(EntityManager em) {
-        return new JPAQueryFactory(em);
+    JPAQueryFactory jpaQueryFactory(EntityManager em, DataChangeNotifier notifier, QueryMetrics metrics) {
+        return new ChangeNotifyingJPAQueryFactory(em, notifier, metrics);
+    }
+
+    // JPA 트랜잭션에 묶인 커넥션을 사용하는 Querydsl SQL
+    @Bean
+    SQLQueryFactory sqlQueryFactory(DataSource dataSource) {
+        Configuration configuration = new Configuration(new H2Templates());
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return new SQLQueryFactory(configuration, new SpringConnectionProvider(dataSource));
     }
 }
@@ -0,0 +1,142 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.support.StatementCounter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 검색 요청의 DB 작업을 톰캣 요청 스레드 대신 실행하는 전용 executor
+ * - 스레드 수는 커넥션 풀 크기 (그 이상은 어차피 커넥션을 기다린다)
+ * - 실행 중 + 대기 중 작업 수를 Semaphore 로 제한하고, 넘치면 바로 거절한다. (호출하는 쪽에서 503)
+ * - virtual-threads=true 이고 런타임이 지원하면 (JDK 21+) 작업마다 가상 스레드로 실행한다.
+ *   이때도 받는 작업 수는 같은 Semaphore 로 제한하고, 동시에 실행하는 작업 수는 별도 Semaphore 로 스레드 수만큼만 둔다.
+ *   (나머지는 가상 스레드에서 대기 = 스레드 풀의 큐)
+ */
+@Slf4j
+@Component
+public class DbExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final Semaphore admission;
+    private final Semaphore concurrency; // 가상 스레드일 때만
+    private final int capacity;
+    private final boolean virtualThreads;
+    private final Counter rejected;
+
+    public DbExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                      @Value("${querydsl.async.threads:0}") int threads,
+                      @Value("${querydsl.async.queue-capacity:0}") int queueCapacity,
+                      @Value("${querydsl.async.virtual-threads:false}") boolean useVirtualThreads,
+                      MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : connectionPoolSize;
+        int queueSize = queueCapacity > 0 ? queueCapacity : poolSize * 2;
+        this.capacity = poolSize + queueSize;
+        this.admission = new Semaphore(capacity);
+
+        ExecutorService virtual = useVirtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtualThreads = virtual != null;
+        if (virtual != null) {
+            this.executor = virtual;
+            this.concurrency = new Semaphore(poolSize);
+        } else {
+            this.concurrency = null;
+            AtomicInteger sequence = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "db-executor-" + sequence.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+        }
+
+        this.rejected = Counter.builder("querydsl.async.rejected").register(registry);
+        Gauge.builder("querydsl.async.in.flight", this, DbExecutor::inFlight).register(registry);
+    }
+
+    /**
+     * @throws RejectedExecutionException 실행 중 + 대기 중 작업이 가득 찼을 때
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (!admission.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("DB executor is saturated (" + capacity + " in flight)");
+        }
+
+        // 요청의 JDBC 문장 수 예산을 작업 스레드에서도 적용
+        StatementCounter.Scope statements = StatementCounter.current();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                StatementCounter.Scope previous = StatementCounter.attach(statements);
+                try {
+                    return run(task);
+                } finally {
+                    StatementCounter.detach(previous);
+                    // future 가 완료되기 전에 반납 (완료를 본 호출자가 바로 다시 제출할 수 있도록)
+                    admission.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private <T> T run(Supplier<T> task) {
+        if (concurrency == null) {
+            return task.get();
+        }
+        try {
+            concurrency.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("DB executor is shutting down", e);
+        }
+        try {
+            return task.get();
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public int inFlight() {
+        return capacity - admission.availablePermits();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("virtual threads are not supported by this runtime, using a platform thread pool");
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -1,15 +1,27 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
-import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Profile("local")
 @Component
@@ -18,27 +30,110 @@ public class InitMember {
 
     private final InitMemberService initMemberService;
 
-    @PostConstruct
+    // 여러 스레드로 저장할 수 있으므로 컨텍스트 초기화(@PostConstruct)가 끝난 뒤에 실행
+    @EventListener(ApplicationReadyEvent.class)
     public void init() {
         initMemberService.init();
     }
 
+    /**
+     * 초기 데이터 적재
+     * - querydsl.init.members 명을 querydsl.init.teams 개 팀에 나눠서 저장
+     * - batch-size 건마다 flush (JDBC batch insert) + clear (영속성 컨텍스트가 커지지 않게)
+     * - threads > 1 이면 회원 번호 구간을 나눠서 스레드마다 별도 트랜잭션으로 저장
+     */
+    @Slf4j
     @Component
     static class InitMemberService {
         @PersistenceContext
         EntityManager em;
 
-        @Transactional
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        @Value("${querydsl.init.members:100}")
+        int memberCount;
+
+        @Value("${querydsl.init.teams:2}")
+        int teamCount;
+
+        @Value("${querydsl.init.batch-size:500}")
+        int batchSize;
+
+        @Value("${querydsl.init.threads:1}")
+        int threads;
+
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
+            Assert.isTrue(memberCount >= 0, "querydsl.init.members must not be negative");
+            Assert.isTrue(teamCount > 0, "querydsl.init.teams must be positive");
+            Assert.isTrue(batchSize > 0, "querydsl.init.batch-size must be positive");
+            Assert.isTrue(threads > 0, "querydsl.init.threads must be positive");
+
+            long start = System.nanoTime();
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+            List<Long> teamIds = tx.execute(status -> persistTeams());
+
+            if (threads == 1) {
+                persistMembers(tx, teamIds, 0, memberCount);
+            } else {
+                int partitionSize = (memberCount + threads - 1) / threads;
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                    List<Future<?>> partitions = new ArrayList<>();
+                    for (int from = 0; from < memberCount; from += partitionSize) {
+                        int begin = from;
+                        int end = Math.min(memberCount, from + partitionSize);
+                        partitions.add(executor.submit(() -> persistMembers(tx, teamIds, begin, end)));
+                    }
+                    for (Future<?> partition : partitions) {
+                        partition.get();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("member init interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("member init failed", e.getCause());
+                } finally {
+                    executor.shutdown();
+                }
             }
+
+            long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            log.info("init {} members, {} teams in {} ms ({} rows/s, threads={}, batchSize={})",
+                    memberCount, teamCount, elapsedMillis,
+                    (memberCount + teamCount) * 1000L / elapsedMillis, threads, batchSize);
+        }
+
+        private List<Long> persistTeams() {
+            List<Long> teamIds = new ArrayList<>();
+            for (int i = 0; i < teamCount; i++) {
+                Team team = new Team(teamName(i));
+                em.persist(team);
+                teamIds.add(team.getId());
+            }
+            return teamIds;
+        }
+
+        private void persistMembers(TransactionTemplate tx, List<Long> teamIds, int from, int to) {
+            for (int chunk = from; chunk < to; chunk += batchSize) {
+                int begin = chunk;
+                int end = Math.min(to, chunk + batchSize);
+                tx.execute(status -> {
+                    for (int i = begin; i < end; i++) {
+                        Team selectedTeam = em.getReference(Team.class, teamIds.get(i % teamIds.size()));
+                        em.persist(new Member("member" + i, i % 100, selectedTeam));
+                    }
+                    em.flush();
+                    em.clear();
+                    return null;
+                });
+            }
+        }
+
+        // 기존 데이터와 같게 teamA, teamB, ... 순서로 이름을 붙인다.
+        private static String teamName(int index) {
+            return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
         }
     }
 }
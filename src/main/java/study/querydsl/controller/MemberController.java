@@ -1,16 +1,34 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.MemberKeysetCursor;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,7 +36,20 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final DbExecutor dbExecutor;
 
+    private static final String EXPORT_CONTENT_TYPE = "application/x-ndjson";
+
+    @Value("${querydsl.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${querydsl.export.timeout:10m}")
+    private Duration exportTimeout;
+
+    // Pageable 을 받는 API 와 같은 최대 페이지 크기
+    @Value("${spring.data.web.pageable.max-page-size:2000}")
+    private int maxPageSize;
 
     // ex) http://localhost/v1/members?teamName=teamB&ageGoe=31&ageLoe=35
     @GetMapping("/v1/members")
@@ -26,6 +57,34 @@ public class MemberController {
         return memberJpaRepository.search(condition);
     }
 
+    // 한 줄에 MemberTeamDto 하나씩 (NDJSON), 조회하는 대로 바로 응답에 쓴다.
+    // 다른 비동기 요청과 같은 mvc-async 스레드에서 실행하고, 제한 시간만 querydsl.export.timeout 으로 늘린다.
+    // ex) http://localhost/v1/members/export?teamName=teamB
+    @GetMapping(value = "/v1/members/export", produces = EXPORT_CONTENT_TYPE)
+    public WebAsyncTask<Void> exportMemberV1(MemberSearchCondition condition, HttpServletResponse response) {
+        response.setContentType(EXPORT_CONTENT_TYPE);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            OutputStream out = response.getOutputStream();
+            try {
+                memberJpaRepository.searchStream(condition, exportFetchSize, dto -> writeLine(out, dto));
+            } catch (UncheckedIOException e) {
+                // 클라이언트가 연결을 끊으면 커서와 트랜잭션은 이미 정리된 상태
+                throw e.getCause();
+            }
+            out.flush();
+            return null;
+        });
+    }
+
+    private void writeLine(OutputStream out, MemberTeamDto dto) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageSimple(condition, pageable);
@@ -36,4 +95,43 @@ public class MemberController {
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    // 요청 스레드를 바로 반납하고 DbExecutor 에서 조회, 가득 차면 503
+    // ex) http://localhost/v1/members/async?teamName=teamB
+    @GetMapping("/v1/members/async")
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition) {
+        return dbExecutor.submit(() -> memberJpaRepository.search(condition));
+    }
+
+    // ex) http://localhost/v3/members/async?page=0&size=5
+    @GetMapping("/v3/members/async")
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition, Pageable pageable) {
+        return dbExecutor.submit(() -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> rejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    // ex) http://localhost/v4/members?size=5&continuationToken=MzU6MzY
+    @GetMapping("/v4/members")
+    public MemberKeysetPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String continuationToken,
+                                           @RequestParam(defaultValue = "20") int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be positive");
+        }
+        MemberKeysetCursor cursor = null;
+        if (continuationToken != null) {
+            try {
+                cursor = MemberKeysetCursor.decode(continuationToken);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+        }
+        return memberRepository.searchByKeyset(condition, cursor, Math.min(size, maxPageSize));
+    }
 }
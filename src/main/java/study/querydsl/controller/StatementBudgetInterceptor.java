@@ -0,0 +1,75 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import study.querydsl.repository.support.StatementCounter;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청 마다 실행한 JDBC 문장 수를 세서 엔드포인트 별 예산과 비교한다.
+ * 비동기 처리로 넘어가면 요청 스레드에서 범위만 떼어 두고, 결과를 쓰는 비동기 재디스패치에서 다시 붙였다가
+ * 재디스패치가 끝날 때 로그를 남긴다. (DbExecutor 작업은 재디스패치 전에 끝나고 같은 범위로 센다)
+ * 스트리밍 응답(/v1/members/export 의 WebAsyncTask)에서 실행한 문장은 세지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE = StatementBudgetInterceptor.class.getName() + ".SCOPE";
+
+    private final StatementBudgetProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCounter.Scope started = (StatementCounter.Scope) request.getAttribute(SCOPE);
+        if (started != null && request.getDispatcherType() == DispatcherType.ASYNC) {
+            // 비동기 처리를 시작한 요청의 범위를 이어서 센다
+            StatementCounter.attach(started);
+            return true;
+        }
+
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String name = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        StatementCounter.Scope scope = StatementCounter.open(name, properties.budgetFor(pattern),
+                properties.getMode() == StatementBudgetProperties.Mode.FAIL);
+        request.setAttribute(SCOPE, scope);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 아직 DbExecutor 에서 세는 중이므로 요청 스레드에서 떼어내기만 한다
+        StatementCounter.Scope scope = (StatementCounter.Scope) request.getAttribute(SCOPE);
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        close(request);
+    }
+
+    private void close(HttpServletRequest request) {
+        StatementCounter.Scope scope = (StatementCounter.Scope) request.getAttribute(SCOPE);
+        if (scope == null) {
+            return;
+        }
+        request.removeAttribute(SCOPE);
+        scope.close();
+
+        if (scope.isExceeded()) {
+            log.warn("SQL statement budget exceeded: {} executed {} statements (budget {})",
+                    scope.getName(), scope.count(), scope.getBudget());
+        } else {
+            log.debug("{} executed {} statements", scope.getName(), scope.count());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 요청 당 JDBC 문장 수 예산
+ * ex) querydsl.statement-budget.endpoints.[/v1/members]=1
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.statement-budget")
+public class StatementBudgetProperties {
+
+    public enum Mode {
+        LOG, // 초과하면 경고 로그
+        FAIL // 초과하는 문장을 실행하기 전에 예외
+    }
+
+    private Mode mode = Mode.LOG;
+
+    /**
+     * endpoints 에 없는 요청의 예산 (0 이면 제한 없음)
+     */
+    private int defaultBudget = 0;
+
+    /**
+     * 핸들러 매핑 패턴 별 예산
+     */
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+
+    public int budgetFor(String pattern) {
+        Integer budget = pattern != null ? endpoints.get(pattern) : null;
+        return budget != null ? budget : defaultBudget;
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamAgeStatsDto;
+import study.querydsl.repository.MemberColumnStore;
+import study.querydsl.repository.TeamStatsRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+
+    private final MemberColumnStore memberColumnStore;
+    private final TeamStatsRepository teamStatsRepository;
+
+    // 팀 이름 별 나이 통계, DB 를 거치지 않고 컬럼 저장소에서 집계
+    // ex) http://localhost/v1/teams/age-stats?username=member1
+    @GetMapping("/v1/teams/age-stats")
+    public List<TeamAgeStatsDto> ageStats(@RequestParam(required = false) String username) {
+        return memberColumnStore.statsByTeam(username);
+    }
+
+    // 팀 별 나이 통계, 커밋 때마다 갱신되는 team_stats 에서 팀 수 만큼만 읽는다
+    // ex) http://localhost/v1/teams/stats
+    @GetMapping("/v1/teams/stats")
+    public List<TeamAgeStatsDto> stats() {
+        return teamStatsRepository.findAllWithTeamName();
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.controller;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final StatementBudgetInterceptor statementBudgetInterceptor;
+
+    // Callable / WebAsyncTask / StreamingResponseBody 를 실행하는 스레드 (기본값 SimpleAsyncTaskExecutor 는 요청마다 새 스레드)
+    // 빈으로 등록하지 않는다. (Executor 빈이 있으면 스프링 부트의 applicationTaskExecutor 가 물러난다)
+    private final ThreadPoolTaskExecutor mvcAsyncExecutor;
+
+    public WebConfig(StatementBudgetInterceptor statementBudgetInterceptor,
+                     @Value("${querydsl.mvc-async.threads:4}") int threads,
+                     @Value("${querydsl.mvc-async.queue-capacity:0}") int queueCapacity) {
+        this.statementBudgetInterceptor = statementBudgetInterceptor;
+        this.mvcAsyncExecutor = new ThreadPoolTaskExecutor();
+        mvcAsyncExecutor.setThreadNamePrefix("mvc-async-");
+        mvcAsyncExecutor.setCorePoolSize(threads);
+        mvcAsyncExecutor.setMaxPoolSize(threads);
+        // 가득 차면 TaskRejectedException -> MemberController 에서 503
+        mvcAsyncExecutor.setQueueCapacity(queueCapacity > 0 ? queueCapacity : threads * 2);
+        mvcAsyncExecutor.setAllowCoreThreadTimeOut(true);
+        mvcAsyncExecutor.setDaemon(true);
+        mvcAsyncExecutor.initialize();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementBudgetInterceptor);
+    }
+
+    /**
+     * 제한 시간은 컨테이너 기본값 그대로 두고, 오래 걸리는 응답 (/v1/members/export) 만 WebAsyncTask 로 따로 늘린다.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+
+    @Override
+    public void destroy() {
+        mvcAsyncExecutor.shutdown();
+    }
+}
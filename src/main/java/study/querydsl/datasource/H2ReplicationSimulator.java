@@ -0,0 +1,83 @@
+package study.querydsl.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로컬 H2 두 개로 복제 지연을 흉내낸다.
+ * lagMs 마다 primary 를 SCRIPT 로 덤프해서 복제 DB 에 다시 만든다. (복제 DB 는 최대 lagMs 만큼 늦다)
+ * 다시 만드는 동안에는 새 읽기를 primary 로 돌리고, 이미 복제 DB 커넥션을 쓰는 트랜잭션이 끝날 때까지 기다린 뒤에 지운다.
+ * lagMs 안에 끝나지 않으면 이번 복제는 건너뛴다. (복제 DB 가 한 주기 더 늦어진다)
+ */
+@Slf4j
+public class H2ReplicationSimulator implements AutoCloseable {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaRoutingPolicy policy;
+    private final long lagMs;
+    private final ScheduledExecutorService scheduler;
+
+    public H2ReplicationSimulator(DataSource primary, DataSource replica, ReplicaRoutingPolicy policy, long lagMs) {
+        this.primary = primary;
+        this.replica = replica;
+        this.policy = policy;
+        this.lagMs = lagMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "h2-replication-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::replicateQuietly, lagMs, lagMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void replicateQuietly() {
+        try {
+            replicate();
+        } catch (Exception e) {
+            log.warn("replication failed", e);
+        }
+    }
+
+    public void replicate() throws Exception {
+        List<String> script = new ArrayList<>();
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+
+        policy.pause();
+        try {
+            if (!policy.awaitReplicaIdle(lagMs)) {
+                log.warn("replica connections still in use after {}ms, skipping replication", lagMs);
+                return;
+            }
+            try (Connection connection = replica.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                for (String sql : script) {
+                    statement.execute(sql);
+                }
+            }
+        } finally {
+            policy.resume();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * querydsl.replica.enabled=true 이면 DataSource 를 primary / 복제 DB 라우팅으로 바꾼다.
+ * (스프링 부트 DataSource 자동 설정은 이 빈이 있으면 물러난다)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    ReplicaDataSources replicaDataSources(DataSourceProperties primaryProperties, ReplicaProperties replicaProperties,
+                                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        return new ReplicaDataSources(primaryProperties, replicaProperties, maximumPoolSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    ReplicaRoutingPolicy replicaRoutingPolicy(ReplicaDataSources dataSources, ReplicaProperties replica) {
+        return new ReplicaRoutingPolicy(dataSources.getReplica(),
+                replica.getReadYourWritesMs(), replica.getHealthCheckIntervalMs());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${querydsl.replica.simulated-lag-ms:0} > 0")
+    H2ReplicationSimulator h2ReplicationSimulator(ReplicaDataSources dataSources, ReplicaRoutingPolicy policy,
+                                                  ReplicaProperties replica) {
+        return new H2ReplicationSimulator(dataSources.getPrimary(), dataSources.getReplica(),
+                policy, replica.getSimulatedLagMs());
+    }
+
+    @Bean
+    DataSource dataSource(ReplicaDataSources dataSources, ReplicaRoutingPolicy policy) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(dataSources.getPrimary(), dataSources.getReplica(), policy));
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+/**
+ * primary / 복제 DB 커넥션 풀
+ * DataSource 빈으로 등록하지 않는다. (p6spy 데코레이터가 라우팅 DataSource 와 이중으로 감싸지 않도록)
+ */
+public class ReplicaDataSources implements AutoCloseable {
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    public ReplicaDataSources(DataSourceProperties primaryProperties, ReplicaProperties replicaProperties, int maximumPoolSize) {
+        this.primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        this.primary.setPoolName("primary");
+        this.primary.setMaximumPoolSize(maximumPoolSize);
+
+        this.replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(replicaProperties.getDriverClassName())
+                .url(replicaProperties.getUrl())
+                .username(replicaProperties.getUsername())
+                .password(replicaProperties.getPassword())
+                .build();
+        this.replica.setPoolName("replica");
+        this.replica.setMaximumPoolSize(maximumPoolSize);
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
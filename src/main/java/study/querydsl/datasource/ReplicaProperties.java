@@ -0,0 +1,39 @@
+package study.querydsl.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 읽기 전용 복제 DB 설정
+ * ex) querydsl.replica.enabled=true, querydsl.replica.url=jdbc:h2:tcp://localhost/~/querydsl-replica
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.replica")
+public class ReplicaProperties {
+
+    private boolean enabled;
+
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+
+    /**
+     * 복제 DB 상태 확인 주기, 실패하면 다음 성공 때까지 primary 로 읽는다.
+     */
+    private long healthCheckIntervalMs = 5000;
+
+    /**
+     * 이 JVM 에서 커밋한 쓰기 이후 이 시간 동안은 읽기도 primary 로 (복제 지연 중에 옛 데이터를 읽지 않도록)
+     * 세션/요청 단위가 아니라 JVM 전체 단위다. 어느 요청이 쓰든 이 시간 동안은 모든 읽기 전용 트랜잭션이 primary 로 간다.
+     */
+    private long readYourWritesMs = 1000;
+
+    /**
+     * 0 보다 크면 이 주기로 primary 를 복제 DB 에 통째로 복사한다. (로컬 H2 두 개로 복제 지연 흉내)
+     */
+    private long simulatedLagMs;
+}
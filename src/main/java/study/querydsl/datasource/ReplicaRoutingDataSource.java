@@ -0,0 +1,85 @@
+package study.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Transactional(readOnly = true) 는 복제 DB, 나머지는 primary
+ * 트랜잭션의 readOnly 여부가 정해진 뒤에 커넥션을 얻도록 LazyConnectionDataSourceProxy 로 감싸서 사용한다.
+ * 복제 DB 커넥션은 닫힐 때까지 사용 중으로 센다. (H2ReplicationSimulator 가 복제 DB 를 다시 만들기 전에 기다린다)
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaRoutingPolicy policy;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaRoutingPolicy policy) {
+        this.primary = primary;
+        this.replica = replica;
+        this.policy = policy;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!policy.acquireReplica()) {
+            return primary.getConnection();
+        }
+        try {
+            return tracked(replica.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            policy.releaseReplica();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!policy.acquireReplica()) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return tracked(replica.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            policy.releaseReplica();
+            throw e;
+        }
+    }
+
+    /**
+     * close 를 처음 호출할 때 한 번만 사용 중에서 뺀다.
+     */
+    private Connection tracked(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            target.close();
+                        } finally {
+                            policy.releaseReplica();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,134 @@
+package study.querydsl.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.support.DataChangeEvent;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션을 복제 DB 로 보낼지 결정한다.
+ * - 복제 DB 상태 확인이 실패했거나 (fallback)
+ * - 이 JVM 에서 커밋한 쓰기 직후이거나 (read-your-writes)
+ * - 복제 중이면 (H2ReplicationSimulator)
+ * primary 로 읽는다.
+ * read-your-writes 는 세션/요청 단위가 아니라 JVM 전체 단위다. (누가 쓰든 쓰기 직후에는 모든 읽기가 primary)
+ * 커넥션을 고르는 시점에는 어떤 엔티티를 읽을지 모르므로 엔티티 단위로도 나누지 않는다.
+ * 쓰기가 잦으면 대부분의 읽기가 primary 로 가므로 read-your-writes-ms 는 복제 지연보다 조금만 길게 둔다.
+ */
+@Slf4j
+public class ReplicaRoutingPolicy implements AutoCloseable {
+
+    private final DataSource replica;
+    private final long readYourWritesNanos;
+    private final ScheduledExecutorService healthCheck;
+
+    private volatile boolean replicaHealthy = true;
+    // 이 JVM 에서 마지막으로 쓰기를 커밋한 시각 (모든 스레드 / 요청이 공유)
+    private volatile long lastWriteNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+    private final AtomicInteger paused = new AtomicInteger();
+    // 복제 DB 에서 얻어서 아직 닫지 않은 커넥션 수
+    private final AtomicInteger replicaConnections = new AtomicInteger();
+
+    public ReplicaRoutingPolicy(DataSource replica, long readYourWritesMs, long healthCheckIntervalMs) {
+        this.replica = replica;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMs);
+        this.healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (healthCheckIntervalMs > 0) {
+            healthCheck.scheduleWithFixedDelay(this::checkHealth,
+                    healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean useReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && replicaHealthy
+                && paused.get() == 0
+                && System.nanoTime() - lastWriteNanos > readYourWritesNanos;
+    }
+
+    /**
+     * 복제 DB 커넥션을 얻어도 되면 사용 중으로 센다. true 이면 커넥션을 닫을 때 releaseReplica 를 호출해야 한다.
+     * 먼저 세고 나서 pause 를 확인하므로 pause 뒤에 awaitReplicaIdle 이 끝나면 복제 DB 커넥션을 새로 얻는 쪽은 없다.
+     */
+    public boolean acquireReplica() {
+        if (!useReplica()) {
+            return false;
+        }
+        replicaConnections.incrementAndGet();
+        if (paused.get() > 0) {
+            replicaConnections.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void releaseReplica() {
+        replicaConnections.decrementAndGet();
+    }
+
+    /**
+     * pause 한 뒤 이미 얻은 복제 DB 커넥션이 모두 닫힐 때까지 기다린다.
+     * @return timeoutMs 안에 모두 닫혔으면 true
+     */
+    public boolean awaitReplicaIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (replicaConnections.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (event.isTransactionCompleted()) {
+            lastWriteNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 복제 DB 를 갱신하는 동안 새 읽기를 primary 로 돌린다. (이미 얻은 커넥션은 awaitReplicaIdle 로 기다린다)
+     */
+    public void pause() {
+        paused.incrementAndGet();
+    }
+
+    public void resume() {
+        paused.decrementAndGet();
+    }
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    void checkHealth() {
+        boolean healthy;
+        try (Connection connection = replica.getConnection()) {
+            healthy = connection.isValid(1);
+        } catch (Exception e) {
+            healthy = false;
+        }
+        if (healthy != replicaHealthy) {
+            log.warn("replica {}", healthy ? "recovered, routing read-only transactions to replica" : "unavailable, falling back to primary");
+        }
+        replicaHealthy = healthy;
+    }
+
+    @Override
+    public void close() {
+        healthCheck.shutdownNow();
+    }
+}
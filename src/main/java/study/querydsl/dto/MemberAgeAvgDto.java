@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 회원 나이와 팀 평균 / 팀 안에서 나이 순으로 누적한 평균
+ */
+@Data
+public class MemberAgeAvgDto {
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private double teamAvgAge;
+    private double runningAvgAge;
+
+    public MemberAgeAvgDto(Long memberId, String username, int age, Long teamId, String teamName,
+                           double teamAvgAge, double runningAvgAge) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.teamAvgAge = teamAvgAge;
+        this.runningAvgAge = runningAvgAge;
+    }
+}
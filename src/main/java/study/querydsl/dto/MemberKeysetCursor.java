@@ -0,0 +1,44 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징의 마지막 정렬 키 (age, memberId)
+ * 클라이언트에는 불투명한 continuation token 으로만 노출한다.
+ */
+@Data
+public class MemberKeysetCursor {
+
+    private final int age;
+    private final Long memberId;
+
+    public MemberKeysetCursor(int age, Long memberId) {
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberKeysetCursor of(MemberTeamDto last) {
+        return new MemberKeysetCursor(last.getAge(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = age + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberKeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new MemberKeysetCursor(
+                    Integer.parseInt(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+}
@@ -1,13 +1,36 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.dto.filter.QueryFilter;
+
+import static study.querydsl.dto.filter.QueryFilter.Op.GOE;
+import static study.querydsl.dto.filter.QueryFilter.Op.LOE;
 
 @Data
 public class MemberSearchCondition {
     // 회원명, 팀명, 나이(ageGoe, ageLoe)
 
+    @QueryFilter(root = QMember.class, path = "username")
     private String username;
+    @QueryFilter(root = QTeam.class, path = "name")
     private String teamName;
+    @QueryFilter(root = QMember.class, path = "age", op = GOE)
     private Integer ageGoe;
+    @QueryFilter(root = QMember.class, path = "age", op = LOE)
     private Integer ageLoe;
+
+    /**
+     * 빈 문자열 조건은 조건이 없는 것과 같으므로 null 로 맞춘 사본 (캐시 키 용도)
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(StringUtils.hasText(username) ? username : null);
+        normalized.setTeamName(StringUtils.hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
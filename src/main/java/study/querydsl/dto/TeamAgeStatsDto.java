@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 팀 이름 별 회원 나이 통계 (count / sum / avg / min / max)
+ */
+@Data
+public class TeamAgeStatsDto {
+
+    private String teamName;
+    private long count;
+    private long sum;
+    private double avg;
+    private int min;
+    private int max;
+
+    public TeamAgeStatsDto(String teamName, long count, long sum, int min, int max) {
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count == 0 ? 0 : (double) sum / count;
+        this.min = min;
+        this.max = max;
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.dto.filter;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 검색 조건 DTO 필드를 Q 타입 경로의 조건식으로 연결한다. (ConditionPredicates 가 해석)
+ * <pre>
+ * &#64;QueryFilter(root = QMember.class, path = "age", op = QueryFilter.Op.GOE)
+ * private Integer ageGoe;
+ * </pre>
+ * null 이거나 (문자열이면) 공백뿐인 값은 조건에서 빠진다.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryFilter {
+
+    /**
+     * 기본 인스턴스(QMember.member 등)를 가진 Q 타입. 조인 별칭과 같은 인스턴스를 쓴다.
+     */
+    Class<? extends EntityPath<?>> root();
+
+    /**
+     * root 기준 프로퍼티 경로 (ex. "username", "team.name")
+     */
+    String path();
+
+    Op op() default Op.EQ;
+
+    enum Op {
+        EQ(Ops.EQ),
+        NE(Ops.NE),
+        GOE(Ops.GOE),
+        GT(Ops.GT),
+        LOE(Ops.LOE),
+        LT(Ops.LT),
+        CONTAINS(Ops.STRING_CONTAINS),
+        STARTS_WITH(Ops.STARTS_WITH);
+
+        private final Operator operator;
+
+        Op(Operator operator) {
+            this.operator = operator;
+        }
+
+        public Operator operator() {
+            return operator;
+        }
+    }
+}
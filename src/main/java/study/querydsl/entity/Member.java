@@ -1,16 +1,28 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import study.querydsl.repository.TeamStatsListener;
+import study.querydsl.repository.support.DataChangeListener;
 
 import javax.persistence.*;
 
 @Entity
+@NamedEntityGraph(name = "Member.team", attributeNodes = @NamedAttributeNode("team"))
+@EntityListeners({DataChangeListener.class, TeamStatsListener.class})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age, member_id"), // age 범위 + (age, id) 키셋 정렬
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    // allocationSize 만큼 시퀀스를 한 번에 가져온다. (pooled optimizer, insert 마다 시퀀스 조회 X)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -20,6 +32,14 @@ public class Member {
     @JoinColumn(name = "team_id")
     private Team team;
 
+    // 마지막으로 DB 와 맞춘 나이 / 팀 id (TeamStatsListener 가 변경 전 값으로 쓴다)
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Integer persistedAge;
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Long persistedTeamId;
+
     public Member(String username) {
         this(username, 0);
     }
@@ -40,4 +60,9 @@ public class Member {
         this.team = team;
         team.getMembers().add(this);
     }
+
+    public void markPersisted() {
+        persistedAge = age;
+        persistedTeamId = team != null ? team.getId() : null;
+    }
 }
@@ -0,0 +1,56 @@
+package study.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * 팀 별 회원 수 / 나이 합계 / 최소 / 최대 (member 를 group by 하지 않고 팀 수 만큼만 읽는다)
+ * TeamStatsMaintainer 가 Member 변경을 모아서 커밋 직전에 갱신한다.
+ * 팀 삭제를 막지 않도록 team 에 FK 를 두지 않고, 조회는 team.id = teamStats.teamId 로 조인한다.
+ */
+@Entity
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    private long memberCount;
+    private long ageSum;
+    private Integer minAge; // 회원이 없으면 null
+    private Integer maxAge;
+
+    public TeamStats(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public double getAvgAge() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+
+    /**
+     * 회원 추가/삭제분 반영 (최소/최대가 빠지는 경우는 호출하는 쪽에서 reset 으로 다시 계산)
+     */
+    public void add(long count, long sum, Integer min, Integer max) {
+        memberCount += count;
+        ageSum += sum;
+        if (min != null) {
+            minAge = minAge == null ? min : Math.min(minAge, min);
+        }
+        if (max != null) {
+            maxAge = maxAge == null ? max : Math.max(maxAge, max);
+        }
+    }
+
+    public void reset(long count, long sum, Integer min, Integer max) {
+        memberCount = count;
+        ageSum = sum;
+        minAge = min;
+        maxAge = max;
+    }
+}
@@ -0,0 +1,319 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CommittedChanges;
+import study.querydsl.repository.support.ConditionPredicates;
+import study.querydsl.repository.support.DataChangeEvent;
+import study.querydsl.repository.support.DataChangeNotifier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member / team 을 메모리 스냅샷(MemberSnapshot)으로 들고 있다가 search 조건을 JVM 안에서 평가한다.
+ * - 처음 조회할 때 전체를 읽고, 이후에는 DataChangeEvent 로 모은 바뀐 row 만 트랜잭션 커밋 후에 다시 읽는다.
+ *   (벌크 execute 처럼 어떤 row 인지 모르는 변경이면 전체를 다시 읽는다)
+ * - 다시 읽기는 refresher 스레드 하나에서 한다. 커밋한 스레드는 바뀐 id 만 넘기고 바로 돌아간다.
+ *   밀린 변경은 한 번에 모아서 이전 스냅샷에 patch 한다.
+ * - 커밋된 변경이 아직 반영되지 않았으면 옛 스냅샷 대신 DB 로 조회한다. (커밋 직후 조회도 커밋한 값을 본다)
+ * - 회원 수가 max-members 를 넘거나, 쓰기 트랜잭션 안이거나 (커밋 전 변경을 봐야 함),
+ *   평가할 수 없는 조건이면 Optional.empty() -> 호출하는 쪽에서 DB 로 조회
+ */
+@Slf4j
+@Component
+public class InMemoryMemberSearch implements DisposableBean {
+
+    private static final ConditionPredicates<MemberSearchCondition> conditions = ConditionPredicates.of(MemberSearchCondition.class);
+
+    private final boolean enabled;
+    private final int maxMembers;
+    private final EntityManagerFactory emf;
+    private final DataChangeNotifier notifier;
+    private final ExecutorService refresher;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private volatile MemberSnapshot snapshot;
+
+    // 커밋된 변경마다 올리는 번호 / 스냅샷에 반영한 번호 (다르면 스냅샷이 옛 값)
+    private final AtomicLong committed = new AtomicLong();
+    private volatile long refreshed;
+
+    // 아직 반영하지 않은 변경 (this lock 안에서 쌓고 꺼낸다)
+    private volatile boolean reloadAll = true;
+    private final Set<Long> pendingMemberIds = new HashSet<>();
+    private final Set<Long> pendingTeamIds = new HashSet<>();
+
+    // 증분 반영용 팀 이름 (refresher 스레드에서만 접근)
+    private final Map<Long, String> teamNames = new HashMap<>();
+
+    private final Counter hits;
+    private final Counter fallbacks;
+
+    public InMemoryMemberSearch(@Value("${querydsl.in-memory.enabled:false}") boolean enabled,
+                                @Value("${querydsl.in-memory.max-members:10000}") int maxMembers,
+                                EntityManagerFactory emf,
+                                DataChangeNotifier notifier,
+                                MeterRegistry registry) {
+        this.enabled = enabled;
+        this.maxMembers = maxMembers;
+        this.emf = emf;
+        this.notifier = notifier;
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-member-search-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        hits = Counter.builder("querydsl.search.in.memory")
+                .tag("result", "hit")
+                .register(registry);
+        fallbacks = Counter.builder("querydsl.search.in.memory")
+                .tag("result", "fallback")
+                .register(registry);
+        Gauge.builder("querydsl.search.in.memory.size", this, InMemoryMemberSearch::size)
+                .register(registry);
+    }
+
+    public Optional<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        MemberSnapshot current = servableSnapshot();
+        List<MemberTeamDto> result = null;
+        if (current != null) {
+            Predicate[] predicates = conditions.toPredicates(condition);
+            result = current.search(predicates);
+        }
+        if (result == null) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(result);
+    }
+
+    public int size() {
+        MemberSnapshot current = snapshot;
+        return current != null ? current.size() : 0;
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (!enabled || !(event.isAbout(Member.class) || event.isAbout(Team.class))) {
+            return;
+        }
+        Object entity = event.getEntity();
+        Long id = entity instanceof Member ? ((Member) entity).getId()
+                : entity instanceof Team ? ((Team) entity).getId() : null;
+        // 트랜잭션 안의 변경은 모아 두었다가 커밋된 경우에만 반영 (롤백이면 버린다)
+        CommittedChanges.collect(this, event, id, this::enqueue);
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 커밋한 스레드에서 호출된다. 바뀐 id 만 쌓아 두고 반영은 refresher 스레드에 맡긴다.
+     * 스냅샷이 없으면 다음 조회 때 전체를 읽는다.
+     */
+    private void enqueue(CommittedChanges changes) {
+        synchronized (this) {
+            if (changes.hasUnknown(Member.class) || changes.hasUnknown(Team.class) || snapshot == null) {
+                reloadAll = true;
+            }
+            pendingMemberIds.addAll(changes.<Long>ids(Member.class));
+            pendingTeamIds.addAll(changes.<Long>ids(Team.class));
+            committed.incrementAndGet();
+        }
+        if (snapshot != null) {
+            scheduleRefresh();
+        }
+    }
+
+    /**
+     * 커밋 전 변경이 보여야 하는 쓰기 트랜잭션 안이거나, 커밋된 변경이 아직 반영되지 않았으면 스냅샷을 쓰지 않는다.
+     */
+    private MemberSnapshot servableSnapshot() {
+        if (notifier.hasPendingChanges()) {
+            return null;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        MemberSnapshot current = snapshot;
+        if (isStale(current)) {
+            scheduleRefresh();
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * 스냅샷이 없어서 전체를 읽어야 하거나, 커밋된 변경이 아직 반영되지 않았는지
+     */
+    private boolean isStale(MemberSnapshot current) {
+        return current == null ? reloadAll : refreshed != committed.get();
+    }
+
+    /**
+     * 스냅샷이 최신이 될 때까지 기다린다. (테스트용)
+     */
+    boolean awaitRefreshed(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (snapshot == null || refreshed != committed.get()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            if (isStale(snapshot)) {
+                scheduleRefresh();
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            try {
+                refresher.execute(this::refresh);
+            } catch (RejectedExecutionException e) {
+                // 종료 중
+                refreshScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * refresher 스레드에서 밀린 변경을 한 번에 반영한다.
+     * reloadAll 이면 전체, 아니면 바뀐 row 만 다시 읽어서 이전 스냅샷에 patch 한다.
+     * 다른 트랜잭션이 먼저 커밋해서 이미 새 값을 읽었더라도 그 트랜잭션의 반영이 뒤따르므로 마지막 값이 남는다.
+     */
+    private void refresh() {
+        refreshScheduled.set(false);
+        boolean all;
+        Set<Long> memberIds;
+        Set<Long> teamIds;
+        long version;
+        synchronized (this) {
+            all = reloadAll || snapshot == null;
+            memberIds = new HashSet<>(pendingMemberIds);
+            teamIds = new HashSet<>(pendingTeamIds);
+            version = committed.get();
+            reloadAll = false;
+            pendingMemberIds.clear();
+            pendingTeamIds.clear();
+        }
+
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            JPAQueryFactory query = new JPAQueryFactory(em);
+            MemberSnapshot next = all ? loadAll(query) : loadChanged(query, snapshot, memberIds, teamIds);
+            transaction.commit();
+            snapshot = next;
+            refreshed = version;
+            if (next != null && version != committed.get()) {
+                // 읽는 동안 커밋된 변경
+                scheduleRefresh();
+            }
+        } catch (RuntimeException e) {
+            // 다음 조회 때 전체를 다시 읽는다. 그 전까지는 DB 로 조회
+            log.warn("in-memory member snapshot refresh failed", e);
+            snapshot = null;
+            reloadAll = true;
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * @return 회원 수가 max-members 를 넘으면 null (다음 커밋된 변경 후에 다시 시도)
+     */
+    private MemberSnapshot loadAll(JPAQueryFactory query) {
+        long count = query.select(member.count()).from(member).fetchOne();
+        teamNames.clear();
+        if (count > maxMembers) {
+            log.info("in-memory member search disabled: {} members > max-members {}", count, maxMembers);
+            return null;
+        }
+        for (Tuple row : query.select(team.id, team.name).from(team).fetch()) {
+            teamNames.put(row.get(team.id), row.get(team.name));
+        }
+        List<MemberSnapshot.MemberRow> members = selectMembers(query, null);
+        if (members.size() > maxMembers) {
+            log.info("in-memory member search disabled: {} members > max-members {}", members.size(), maxMembers);
+            return null;
+        }
+        return new MemberSnapshot(members, teamNames);
+    }
+
+    private MemberSnapshot loadChanged(JPAQueryFactory query, MemberSnapshot previous, Set<Long> memberIds, Set<Long> teamIds) {
+        if (!teamIds.isEmpty()) {
+            for (Long id : teamIds) {
+                teamNames.remove(id);
+            }
+            for (Tuple row : query.select(team.id, team.name).from(team).where(team.id.in(teamIds)).fetch()) {
+                teamNames.put(row.get(team.id), row.get(team.name));
+            }
+        }
+        List<MemberSnapshot.MemberRow> reloaded = memberIds.isEmpty()
+                ? new ArrayList<>() : selectMembers(query, memberIds);
+        MemberSnapshot next = previous.patch(memberIds, reloaded, teamIds, teamNames);
+        if (next.size() > maxMembers) {
+            throw new IllegalStateException("snapshot grew over max-members " + maxMembers);
+        }
+        return next;
+    }
+
+    private static List<MemberSnapshot.MemberRow> selectMembers(JPAQueryFactory query, Set<Long> ids) {
+        List<Tuple> tuples = query.select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(ids != null ? member.id.in(ids) : null)
+                .fetch();
+        List<MemberSnapshot.MemberRow> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(new MemberSnapshot.MemberRow(tuple.get(member.id), tuple.get(member.username),
+                    tuple.get(member.age), tuple.get(member.team.id)));
+        }
+        return rows;
+    }
+}
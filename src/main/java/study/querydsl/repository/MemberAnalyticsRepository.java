@@ -0,0 +1,144 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.WindowFunction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeAvgDto;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * 팀 별 분석 쿼리 (윈도우 함수, JPQL 로는 팀 마다 다시 읽는 상관 서브쿼리로만 표현된다)
+ * 한 번의 스캔으로 partition by team_id 를 계산하고, 윈도우 결과로 거를 때는 파생 테이블로 감싼다.
+ * MemberSqlRepository 처럼 JPA 트랜잭션의 커넥션을 그대로 사용한다. 팀이 없는 회원은 제외
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberAnalyticsRepository {
+
+    // select ... from (select ..., <윈도우 함수> as rnk from member ...) ranked where ranked.rnk <= ?
+    private static final PathBuilder<Object> ranked = new PathBuilder<>(Object.class, "ranked");
+    private static final NumberPath<Long> rankedMemberId = ranked.getNumber("member_id", Long.class);
+    private static final StringPath rankedUsername = ranked.getString("username");
+    private static final NumberPath<Integer> rankedAge = ranked.getNumber("age", Integer.class);
+    private static final NumberPath<Long> rankedTeamId = ranked.getNumber("team_id", Long.class);
+    private static final StringPath rankedTeamName = ranked.getString("team_name");
+    private static final NumberPath<Long> rankedRank = ranked.getNumber("rnk", Long.class);
+    private static final NumberPath<Double> rankedTeamAvgAge = ranked.getNumber("team_avg_age", Double.class);
+
+    private final EntityManager em;
+    private final SQLQueryFactory sqlQueryFactory;
+
+    /**
+     * 팀 별로 나이가 많은 순서 n 명 (같은 나이는 member_id 순서), row_number() over (partition by team_id ...)
+     */
+    public List<MemberRankDto> topNPerTeam(int n) {
+        return rankedMembers(SQLExpressions.rowNumber().over()
+                .partitionBy(member.teamId)
+                .orderBy(member.age.desc(), member.memberId.asc()), n);
+    }
+
+    /**
+     * 팀 안에서의 나이 순위, 같은 나이는 같은 순위 (rank() over (partition by team_id order by age desc))
+     * maxRank 가 1 이면 팀 별 최고령 회원 (max(age) 상관 서브쿼리와 같은 결과), null 이면 전체
+     */
+    public List<MemberRankDto> rankWithinTeam(Integer maxRank) {
+        return rankedMembers(SQLExpressions.rank().over()
+                .partitionBy(member.teamId)
+                .orderBy(member.age.desc()), maxRank);
+    }
+
+    /**
+     * 팀 평균 나이와 팀 안에서 나이 순으로 누적한 평균 나이
+     * avg(age) over (partition by team_id [order by age, member_id rows between unbounded preceding and current row])
+     */
+    public List<MemberAgeAvgDto> runningAverageAge() {
+        em.flush();
+
+        NumberExpression<Double> age = member.age.doubleValue();
+        return sqlQueryFactory
+                .select(Projections.constructor(MemberAgeAvgDto.class,
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        member.teamId,
+                        team.name,
+                        SQLExpressions.avg(age).over()
+                                .partitionBy(member.teamId),
+                        SQLExpressions.avg(age).over()
+                                .partitionBy(member.teamId)
+                                .orderBy(member.age.asc(), member.memberId.asc())
+                                .rows().between().unboundedPreceding().currentRow()))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .orderBy(member.teamId.asc(), member.age.asc(), member.memberId.asc())
+                .fetch();
+    }
+
+    /**
+     * 팀 평균 나이 이상인 회원 (age >= avg(age) 상관 서브쿼리를 윈도우 평균으로)
+     */
+    public List<MemberTeamDto> aboveTeamAverage() {
+        em.flush();
+
+        SubQueryExpression<Tuple> rows = SQLExpressions
+                .select(member.memberId.as("member_id"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        member.teamId.as("team_id"),
+                        team.name.as("team_name"),
+                        SQLExpressions.avg(member.age.doubleValue()).over()
+                                .partitionBy(member.teamId)
+                                .as("team_avg_age"))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId));
+
+        return sqlQueryFactory
+                .select(Projections.constructor(MemberTeamDto.class,
+                        rankedMemberId, rankedUsername, rankedAge, rankedTeamId, rankedTeamName))
+                .from(rows, ranked)
+                .where(rankedAge.goe(rankedTeamAvgAge))
+                .orderBy(rankedTeamId.asc(), rankedMemberId.asc())
+                .fetch();
+    }
+
+    private List<MemberRankDto> rankedMembers(WindowFunction<Long> ranking, Integer maxRank) {
+        // 영속성 컨텍스트의 쓰기 지연 SQL 은 Querydsl SQL 쿼리 전에 직접 반영해야 한다.
+        em.flush();
+
+        SubQueryExpression<Tuple> rows = SQLExpressions
+                .select(member.memberId.as("member_id"),
+                        member.username.as("username"),
+                        member.age.as("age"),
+                        member.teamId.as("team_id"),
+                        team.name.as("team_name"),
+                        ranking.as("rnk"))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId));
+
+        return sqlQueryFactory
+                .select(Projections.constructor(MemberRankDto.class,
+                        rankedMemberId, rankedUsername, rankedAge, rankedTeamId, rankedTeamName, rankedRank))
+                .from(rows, ranked)
+                .where(maxRank != null ? rankedRank.loe(maxRank.longValue()) : null)
+                .orderBy(rankedTeamId.asc(), rankedRank.asc(), rankedMemberId.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,553 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.TeamAgeStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CommittedChanges;
+import study.querydsl.repository.support.DataChangeEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀 별 나이 통계용 컬럼 저장소 (member 한 row = 각 컬럼의 같은 위치)
+ * - ages : int, teamIds : long, usernames : 사전(dictionary) 코드 int
+ * - querydsl.columnar.off-heap=true 면 컬럼을 direct buffer 에 둔다. (힙/GC 대상 밖)
+ * - 통계는 row 구간(partition) 별로 병렬 집계 후 합친다. row 마다 박싱/해시맵 조회 없음
+ * - 처음 조회할 때 전체를 읽고, 이후에는 커밋된 변경 row 만 다시 읽어서 제자리 갱신 (벌크 execute 면 전체)
+ * 커밋된 데이터만 보이므로 쓰기 트랜잭션 안에서 방금 바꾼 값은 반영되지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberColumnStore {
+
+    private static final long NO_TEAM = Long.MIN_VALUE;
+    private static final int NO_USERNAME = -1;
+    private static final int MIN_PARTITION_ROWS = 4096;
+
+    private final EntityManagerFactory emf;
+    private final boolean offHeap;
+    private final int partitions;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 아래 필드는 쓰기 lock 안에서만 변경
+    private LongColumn memberIds;
+    private IntColumn ages;
+    private LongColumn teamIds;
+    private IntColumn usernames;
+    private int size;
+    private final Map<Long, Integer> rowByMemberId = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+
+    private volatile boolean loaded;
+    private volatile boolean reloadAll = true;
+
+    public MemberColumnStore(EntityManagerFactory emf,
+                             @Value("${querydsl.columnar.off-heap:false}") boolean offHeap,
+                             @Value("${querydsl.columnar.partitions:0}") int partitions) {
+        this.emf = emf;
+        this.offHeap = offHeap;
+        this.partitions = partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors();
+        allocate(16);
+    }
+
+    /**
+     * select team.name, count, sum, avg, min, max from member join team group by team.name
+     *
+     * @param username null 이 아니면 이 이름의 회원만
+     */
+    public List<TeamAgeStatsDto> statsByTeam(String username) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            int code = NO_USERNAME;
+            if (username != null) {
+                Integer found = codes.get(username);
+                if (found == null) {
+                    return new ArrayList<>();
+                }
+                code = found;
+            }
+
+            // 같은 이름의 팀은 한 그룹 (group by team.name)
+            List<String> names = new ArrayList<>();
+            Map<String, Integer> slotByName = new HashMap<>();
+            LongIntMap slotByTeamId = new LongIntMap(teamNames.size());
+            for (Map.Entry<Long, String> entry : teamNames.entrySet()) {
+                Integer slot = slotByName.get(entry.getValue());
+                if (slot == null) {
+                    slot = names.size();
+                    slotByName.put(entry.getValue(), slot);
+                    names.add(entry.getValue());
+                }
+                slotByTeamId.put(entry.getKey(), slot);
+            }
+
+            Stats stats = aggregate(slotByTeamId, names.size(), code);
+            List<TeamAgeStatsDto> result = new ArrayList<>();
+            for (int slot = 0; slot < names.size(); slot++) {
+                if (stats.count[slot] > 0) {
+                    result.add(new TeamAgeStatsDto(names.get(slot), stats.count[slot], stats.sum[slot],
+                            stats.min[slot], stats.max[slot]));
+                }
+            }
+            result.sort((a, b) -> a.getTeamName().compareTo(b.getTeamName()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Stats aggregate(LongIntMap slotByTeamId, int slots, int usernameCode) {
+        int parts = Math.max(1, Math.min(partitions, size / MIN_PARTITION_ROWS));
+        int rows = size;
+        return IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(p -> aggregate(slotByTeamId, slots, usernameCode,
+                        (int) ((long) rows * p / parts), (int) ((long) rows * (p + 1) / parts)))
+                .reduce(Stats::merge)
+                .orElseGet(() -> new Stats(slots));
+    }
+
+    private Stats aggregate(LongIntMap slotByTeamId, int slots, int usernameCode, int from, int to) {
+        Stats stats = new Stats(slots);
+        for (int i = from; i < to; i++) {
+            long teamId = teamIds.get(i);
+            if (teamId == NO_TEAM) {
+                continue;
+            }
+            if (usernameCode != NO_USERNAME && usernames.get(i) != usernameCode) {
+                continue;
+            }
+            int slot = slotByTeamId.get(teamId);
+            if (slot < 0) {
+                continue;
+            }
+            int age = ages.get(i);
+            stats.count[slot]++;
+            stats.sum[slot] += age;
+            if (age < stats.min[slot]) {
+                stats.min[slot] = age;
+            }
+            if (age > stats.max[slot]) {
+                stats.max[slot] = age;
+            }
+        }
+        return stats;
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (!(event.isAbout(Member.class) || event.isAbout(Team.class))) {
+            return;
+        }
+        Object entity = event.getEntity();
+        Long id = entity instanceof Member ? ((Member) entity).getId()
+                : entity instanceof Team ? ((Team) entity).getId() : null;
+        CommittedChanges.collect(this, event, id, this::apply);
+    }
+
+    private synchronized void apply(CommittedChanges changes) {
+        if (changes.hasUnknown(Member.class) || changes.hasUnknown(Team.class)) {
+            reloadAll = true;
+        }
+        if (!loaded) {
+            return;
+        }
+        try {
+            refresh(changes);
+        } catch (RuntimeException e) {
+            // 커밋은 끝났으므로 전파하지 않는다. 다음 조회 때 전체를 다시 읽는다.
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded || reloadAll) {
+            synchronized (this) {
+                if (!loaded || reloadAll) {
+                    refresh(new CommittedChanges());
+                }
+            }
+        }
+    }
+
+    /**
+     * DB 에서 읽는 동안은 읽기를 막지 않고, 컬럼에 반영할 때만 쓰기 lock (synchronized 안에서 호출)
+     */
+    private void refresh(CommittedChanges changes) {
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction transaction = em.getTransaction();
+        try {
+            transaction.begin();
+            JPAQueryFactory query = new JPAQueryFactory(em);
+            if (reloadAll) {
+                List<Tuple> teams = query.select(team.id, team.name).from(team).fetch();
+                List<Tuple> members = selectMembers(query, null);
+                transaction.commit();
+                reloadAll = false;
+                replaceAll(teams, members);
+                loaded = true;
+            } else {
+                Set<Long> teamIds = changes.ids(Team.class);
+                Set<Long> memberIds = changes.ids(Member.class);
+                List<Tuple> teams = teamIds.isEmpty() ? new ArrayList<>()
+                        : query.select(team.id, team.name).from(team).where(team.id.in(teamIds)).fetch();
+                List<Tuple> members = memberIds.isEmpty() ? new ArrayList<>() : selectMembers(query, memberIds);
+                transaction.commit();
+                applyChanged(teamIds, teams, memberIds, members);
+            }
+        } catch (RuntimeException e) {
+            log.warn("member column store refresh failed", e);
+            reloadAll = true;
+            throw e;
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            em.close();
+        }
+    }
+
+    private static List<Tuple> selectMembers(JPAQueryFactory query, Set<Long> ids) {
+        return query.select(member.id, member.username, member.age, member.team.id)
+                .from(member)
+                .where(ids != null ? member.id.in(ids) : null)
+                .fetch();
+    }
+
+    private void replaceAll(List<Tuple> teams, List<Tuple> members) {
+        lock.writeLock().lock();
+        try {
+            teamNames.clear();
+            for (Tuple row : teams) {
+                teamNames.put(row.get(team.id), row.get(team.name));
+            }
+            rowByMemberId.clear();
+            dictionary.clear();
+            codes.clear();
+            size = 0;
+            allocate(Math.max(16, members.size()));
+            for (Tuple row : members) {
+                upsert(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyChanged(Set<Long> teamIds, List<Tuple> teams, Set<Long> memberIds, List<Tuple> members) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : teamIds) {
+                teamNames.remove(id);
+            }
+            for (Tuple row : teams) {
+                teamNames.put(row.get(team.id), row.get(team.name));
+            }
+            // 다시 읽었는데 없으면 삭제된 row
+            for (Long id : memberIds) {
+                remove(id);
+            }
+            for (Tuple row : members) {
+                upsert(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(Tuple row) {
+        Long id = row.get(member.id);
+        Integer position = rowByMemberId.get(id);
+        if (position == null) {
+            if (size == ages.capacity()) {
+                grow();
+            }
+            position = size++;
+            rowByMemberId.put(id, position);
+        }
+        Long teamId = row.get(member.team.id);
+        memberIds.set(position, id);
+        ages.set(position, row.get(member.age));
+        teamIds.set(position, teamId != null ? teamId : NO_TEAM);
+        usernames.set(position, encode(row.get(member.username)));
+    }
+
+    /**
+     * 마지막 row 를 빈 자리로 옮긴다.
+     */
+    private void remove(Long id) {
+        Integer position = rowByMemberId.remove(id);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            long lastId = memberIds.get(last);
+            memberIds.set(position, lastId);
+            ages.set(position, ages.get(last));
+            teamIds.set(position, teamIds.get(last));
+            usernames.set(position, usernames.get(last));
+            rowByMemberId.put(lastId, position);
+        }
+    }
+
+    // 사전은 전체를 다시 읽을 때만 비운다. (그 사이 바뀐 이름은 쓰이지 않는 코드로 남는다)
+    private int encode(String username) {
+        if (username == null) {
+            return NO_USERNAME;
+        }
+        Integer code = codes.get(username);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(username);
+            codes.put(username, code);
+        }
+        return code;
+    }
+
+    private void allocate(int capacity) {
+        memberIds = LongColumn.create(capacity, offHeap);
+        ages = IntColumn.create(capacity, offHeap);
+        teamIds = LongColumn.create(capacity, offHeap);
+        usernames = IntColumn.create(capacity, offHeap);
+    }
+
+    private void grow() {
+        int capacity = ages.capacity() * 2;
+        memberIds = memberIds.copy(capacity, size, offHeap);
+        ages = ages.copy(capacity, size, offHeap);
+        teamIds = teamIds.copy(capacity, size, offHeap);
+        usernames = usernames.copy(capacity, size, offHeap);
+    }
+
+    private static final class Stats {
+        private final long[] count;
+        private final long[] sum;
+        private final int[] min;
+        private final int[] max;
+
+        Stats(int slots) {
+            count = new long[slots];
+            sum = new long[slots];
+            min = new int[slots];
+            max = new int[slots];
+            Arrays.fill(min, Integer.MAX_VALUE);
+            Arrays.fill(max, Integer.MIN_VALUE);
+        }
+
+        Stats merge(Stats other) {
+            for (int i = 0; i < count.length; i++) {
+                count[i] += other.count[i];
+                sum[i] += other.sum[i];
+                min[i] = Math.min(min[i], other.min[i]);
+                max[i] = Math.max(max[i], other.max[i]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * int 컬럼 (힙 int[] 또는 direct buffer)
+     */
+    private abstract static class IntColumn {
+
+        static IntColumn create(int capacity, boolean offHeap) {
+            return offHeap ? new DirectIntColumn(capacity) : new HeapIntColumn(capacity);
+        }
+
+        abstract int get(int index);
+
+        abstract void set(int index, int value);
+
+        abstract int capacity();
+
+        IntColumn copy(int capacity, int size, boolean offHeap) {
+            IntColumn copy = create(capacity, offHeap);
+            for (int i = 0; i < size; i++) {
+                copy.set(i, get(i));
+            }
+            return copy;
+        }
+    }
+
+    private static final class HeapIntColumn extends IntColumn {
+        private final int[] values;
+
+        HeapIntColumn(int capacity) {
+            values = new int[capacity];
+        }
+
+        @Override
+        int get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+    }
+
+    private static final class DirectIntColumn extends IntColumn {
+        private final IntBuffer values;
+
+        DirectIntColumn(int capacity) {
+            values = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        @Override
+        int get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void set(int index, int value) {
+            values.put(index, value);
+        }
+
+        @Override
+        int capacity() {
+            return values.capacity();
+        }
+    }
+
+    /**
+     * long 컬럼 (힙 long[] 또는 direct buffer)
+     */
+    private abstract static class LongColumn {
+
+        static LongColumn create(int capacity, boolean offHeap) {
+            return offHeap ? new DirectLongColumn(capacity) : new HeapLongColumn(capacity);
+        }
+
+        abstract long get(int index);
+
+        abstract void set(int index, long value);
+
+        LongColumn copy(int capacity, int size, boolean offHeap) {
+            LongColumn copy = create(capacity, offHeap);
+            for (int i = 0; i < size; i++) {
+                copy.set(i, get(i));
+            }
+            return copy;
+        }
+    }
+
+    private static final class HeapLongColumn extends LongColumn {
+        private final long[] values;
+
+        HeapLongColumn(int capacity) {
+            values = new long[capacity];
+        }
+
+        @Override
+        long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, long value) {
+            values[index] = value;
+        }
+    }
+
+    private static final class DirectLongColumn extends LongColumn {
+        private final LongBuffer values;
+
+        DirectLongColumn(int capacity) {
+            values = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        @Override
+        long get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void set(int index, long value) {
+            values.put(index, value);
+        }
+    }
+
+    /**
+     * team id -> 그룹 번호 (open addressing, 박싱 없음). 집계 동안에는 읽기만 한다.
+     */
+    private static final class LongIntMap {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        LongIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, NO_TEAM);
+        }
+
+        void put(long key, int value) {
+            int i = index(key);
+            while (keys[i] != NO_TEAM && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int get(long key) {
+            int i = index(key);
+            while (keys[i] != NO_TEAM) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int index(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
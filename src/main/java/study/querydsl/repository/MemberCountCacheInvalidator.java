@@ -0,0 +1,32 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountCache;
+import study.querydsl.repository.support.DataChangeEvent;
+
+/**
+ * member left join team count 캐시 무효화
+ * - Member 변경 : 모든 조건의 count 가 바뀔 수 있다.
+ * - Team 변경 : teamName 조건이 있는 count 만 바뀔 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCountCacheInvalidator {
+
+    private final CountCache countCache;
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (event.isAbout(Member.class)) {
+            countCache.invalidateAll();
+        } else if (event.isAbout(Team.class)) {
+            countCache.invalidate(condition -> !(condition instanceof MemberSearchCondition)
+                    || ((MemberSearchCondition) condition).getTeamName() != null);
+        }
+    }
+}
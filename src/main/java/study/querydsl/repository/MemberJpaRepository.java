@@ -1,19 +1,25 @@
 package study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.ConditionPredicates;
+import study.querydsl.repository.support.MultiGetExecutor;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
@@ -22,8 +28,13 @@ import static study.querydsl.entity.QTeam.team;
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
+    private static final ConditionPredicates<MemberSearchCondition> conditions = ConditionPredicates.of(MemberSearchCondition.class);
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchShapeCache searchShapeCache;
+    private final MemberSearchResultCache searchResultCache;
+    private final MultiGetExecutor multiGet;
 
     public void save(Member member) {
         em.persist(member);
@@ -56,6 +67,17 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * id 목록으로 조회, 결과는 ids 순서 (없는 id 는 빠진다)
+     * chunk 별로 in (...) 길이를 2 의 거듭제곱으로 맞춰서 같은 SQL 을 재사용한다. (MultiGetExecutor)
+     */
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return multiGet.fetch(ids, Member::getId, chunk -> queryFactory.selectFrom(member)
+                .where(member.id.in(chunk))
+                .fetch());
+    }
+
+    // 요청마다 Querydsl 식을 새로 조립하는 방식 (search 와 비교용으로 캐시를 쓰지 않는다)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
         BooleanBuilder builder = new BooleanBuilder();
@@ -86,8 +108,20 @@ public class MemberJpaRepository {
 
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        // 같은 조건이면 결과 캐시, 없으면 where 절 모양 별로 만들어 둔 JPQL 에 파라미터만 바인딩
+        return searchResultCache.get(condition, () -> searchShapeCache.search(condition));
+    }
+
+    /**
+     * 결과를 List 로 모으지 않고 forward-only 커서(ScrollableResults)로 한 건씩 넘긴다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않는다.
+     * action 에서 예외가 발생하면 (ex. 클라이언트 연결 끊김) 커서를 닫고 그대로 전파한다.
+     */
+    @Transactional(readOnly = true)
+    public void searchStream(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> action) {
+        try (CloseableIterator<MemberTeamDto> iterator = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -96,26 +130,13 @@ public class MemberJpaRepository {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        getLoe(condition.getAgeLoe()))
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression getLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+                .where(conditions.toPredicates(condition))
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate()) {
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+            }
+        }
     }
 }
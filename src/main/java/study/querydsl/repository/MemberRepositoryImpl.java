@@ -9,13 +9,29 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.support.PageableExecutionUtils;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+import study.querydsl.dto.MemberKeysetCursor;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
-
+import study.querydsl.repository.support.ChangeNotifyingJPAQueryFactory;
+import study.querydsl.repository.support.ConditionPredicates;
+import study.querydsl.repository.support.CountCache;
+import study.querydsl.repository.support.CountQueryOptimizer;
+import study.querydsl.repository.support.MultiGetExecutor;
+import study.querydsl.repository.support.PageMode;
+import study.querydsl.repository.support.PageModeProperties;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+
+import javax.persistence.EntityManager;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
@@ -23,28 +39,33 @@ import static study.querydsl.entity.QTeam.team;
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final ConditionPredicates<MemberSearchCondition> conditions = ConditionPredicates.of(MemberSearchCondition.class);
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final CountCache countCache;
+    private final PageModeProperties pageModes;
+    private final MemberSqlRepository memberSqlRepository;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final MemberSearchShapeCache searchShapeCache;
+    private final InMemoryMemberSearch inMemorySearch;
+    private final MultiGetExecutor multiGet;
 
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLog(condition.getAgeLoe()))
-                .fetch();
+        // 메모리 스냅샷으로 답할 수 있으면 DB 를 거치지 않고,
+        // 아니면 where 절 모양 별로 만들어 둔 JPQL 에 파라미터만 바인딩 (MemberSearchShapeCache)
+        return inMemorySearch.search(condition)
+                .orElseGet(() -> searchShapeCache.search(condition));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        if (pageModes.getSearchPageSimple() == PageMode.WINDOW_COUNT) {
+            return memberSqlRepository.searchPageWindowCount(condition, pageable);
+        }
         QueryResults<MemberTeamDto> results = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -54,11 +75,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLog(condition.getAgeLoe())
-                ).offset(pageable.getOffset())
+                .where(conditions.toPredicates(condition))
+                .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetchResults();
 
@@ -69,7 +87,80 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        if (pageModes.getSearchPageComplex() == PageMode.WINDOW_COUNT) {
+            return memberSqlRepository.searchPageWindowCount(condition, pageable);
+        }
+
+        // CONCURRENT_COUNT : count 쿼리를 별도 커넥션에서 먼저 시작하고 content 를 조회
+        CountCache.Key countKey = CountCache.key("MemberRepository.searchPageComplex", condition.normalized());
+        CompletableFuture<Long> concurrentCount = pageModes.getSearchPageComplex() == PageMode.CONCURRENT_COUNT
+                && parallelQueryExecutor.canRunConcurrently()
+                && !countCache.containsKey(countKey)
+                ? submitCountQuery(condition)
+                : null;
+
+        try {
+            List<MemberTeamDto> content = queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(conditions.toPredicates(condition))
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch();
+
+            // 별도 커넥션의 count 가 늦으면 (커넥션 풀이 바쁨) 현재 EntityManager 로 count
+            LongSupplier count = concurrentCount != null
+                    ? () -> parallelQueryExecutor.await(concurrentCount, () -> countQuery(em, queryFactory, condition).fetchCount())
+                    : countQuery(em, queryFactory, condition)::fetchCount;
+
+            // -스프링 데이터 라이브러리가 제공
+            // - count 쿼리가 생략 가능한 경우 생략해서 처리
+            //   - 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
+            //   - 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
+            // - count 는 정규화한 검색 조건을 키로 캐시 (Member/Team 변경 시 무효화)
+            return PageableExecutionUtils.getPage(content, pageable, () -> countCache.get(countKey, count));
+        } finally {
+            if (concurrentCount != null) {
+                concurrentCount.cancel(false);
+            }
+        }
+//        return new PageImpl<>(content, pageable, count);
+    }
+
+    /**
+     * @return 커넥션 허가가 없거나 병렬 쿼리 스레드가 모두 바쁘면 null (현재 EntityManager 로 차례로 count)
+     */
+    private CompletableFuture<Long> submitCountQuery(MemberSearchCondition condition) {
+        try {
+            return parallelQueryExecutor.submit(countEm -> countQuery(countEm, ChangeNotifyingJPAQueryFactory.forEntityManager(queryFactory, countEm), condition).fetchCount());
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    // total count 를 가져올 때, content 쿼리와 다르게 count 쿼리는 심플하게
+    // 만들 수 있다면, searchPageSimple 보다 join 등 심플하게 만들어서 하는게 좋을 수도 있다.
+    // teamName 조건이 없으면 left join team 은 count 에 영향이 없으므로 CountQueryOptimizer 가 제거한다.
+    private JPAQuery<?> countQuery(EntityManager entityManager, JPAQueryFactory factory, MemberSearchCondition condition) {
+        return CountQueryOptimizer.optimize(entityManager, factory.select(member)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(conditions.toPredicates(condition)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MemberKeysetPage searchByKeyset(MemberSearchCondition condition, MemberKeysetCursor cursor, int size) {
+        Assert.isTrue(size > 0, "size must be positive");
+        // offset 대신 마지막으로 본 (age, id) 다음부터 조회 -> 페이지가 깊어져도 앞의 row 를 버리지 않는다.
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -79,46 +170,47 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         team.name.as("teamName")))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLog(condition.getAgeLoe())
-                ).offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .where(conditions.toPredicates(condition))
+                .where(afterCursor(cursor))
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(size + 1L)
                 .fetch();
 
-        // total count 를 가져올 때, content 쿼리와 다르게 count 쿼리는 심플하게
-        // 만들 수 있다면, searchPageSimple 보다 join 등 심플하게 만들어서 하는게 좋을 수도 있다.
-        JPAQuery<Member> countQuery = queryFactory.select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLog(condition.getAgeLoe())
-                );
-
-        // -스프링 데이터 라이브러리가 제공
-        // - count 쿼리가 생략 가능한 경우 생략해서 처리
-        //   - 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
-        //   - 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
-//        return new PageImpl<>(content, pageable, count);
-    }
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        String continuationToken = hasNext
+                ? MemberKeysetCursor.of(content.get(content.size() - 1)).encode()
+                : null;
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+        return new MemberKeysetPage(content, hasNext, continuationToken);
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> findAllByIds(Collection<Long> memberIds) {
+        // chunk 별로 in (...) 길이를 2 의 거듭제곱으로 맞춰서 조회, 결과는 memberIds 순서 (MultiGetExecutor)
+        return multiGet.fetchConcurrently(memberIds, MemberTeamDto::getMemberId, (chunkEm, ids) ->
+                ChangeNotifyingJPAQueryFactory.forEntityManager(queryFactory, chunkEm)
+                        .select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(member.id.in(ids))
+                        .fetch());
     }
 
-    private BooleanExpression ageLog(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // (age, id) > (?, ?)
+    private BooleanExpression afterCursor(MemberKeysetCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        return member.age.gt(cursor.getAge())
+                .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
     }
 }
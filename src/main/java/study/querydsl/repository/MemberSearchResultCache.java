@@ -0,0 +1,167 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.DataChangeEvent;
+import study.querydsl.repository.support.DataChangeNotifier;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * MemberJpaRepository#search 결과 캐시 (LRU, 항목 수 + 추정 바이트 수 제한)
+ * - 키는 정규화한 검색 조건 (MemberSearchCondition#normalized)
+ * - 결과에 회원/팀 컬럼이 모두 들어 있으므로 Member, Team 이 바뀌면 (벌크 execute() 포함) 전부 무효화
+ * - MemberTeamDto 는 변경 가능하므로 저장할 때와 꺼낼 때 복사한다. (호출자가 바꿔도 캐시와 다른 호출자에 영향 없음)
+ * - 조회 중에 무효화가 일어났거나 현재 트랜잭션에 커밋 전 변경이 있으면 저장하지 않는다.
+ *   (DataChangeNotifier 가 커밋 후에도 한 번 더 이벤트를 발행하므로 커밋된 쓰기 이후 stale 결과가 남지 않는다)
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final DataChangeNotifier notifier;
+    private final Map<MemberSearchCondition, Entry> entries =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long bytes;
+    private long generation;
+
+    public MemberSearchResultCache(@Value("${querydsl.result-cache.max-entries:1000}") int maxEntries,
+                                   @Value("${querydsl.result-cache.max-bytes:16777216}") long maxBytes,
+                                   DataChangeNotifier notifier,
+                                   MeterRegistry registry) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.notifier = notifier;
+
+        FunctionCounter.builder("querydsl.search.result.cache", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.search.result.cache", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("querydsl.search.result.cache.size", this, MemberSearchResultCache::size)
+                .register(registry);
+        Gauge.builder("querydsl.search.result.cache.bytes", this, MemberSearchResultCache::bytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> search) {
+        MemberSearchCondition key = condition.normalized();
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return copyOf(entry.result);
+            }
+            startGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        List<MemberTeamDto> result = search.get();
+        if (notifier.hasPendingChanges()) {
+            return result;
+        }
+
+        Entry entry = new Entry(copyOf(result), estimateBytes(key, result));
+        if (entry.bytes > maxBytes) {
+            return result;
+        }
+        synchronized (this) {
+            if (startGeneration == generation) {
+                put(key, entry);
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (event.isAbout(Member.class) || event.isAbout(Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private void put(MemberSearchCondition key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += entry.bytes;
+
+        // access-order 이므로 앞에서부터 가장 오래 안 쓴 항목
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext() && (entries.size() > maxEntries || bytes > maxBytes)) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    private static List<MemberTeamDto> copyOf(List<MemberTeamDto> result) {
+        List<MemberTeamDto> copy = new ArrayList<>(result.size());
+        for (MemberTeamDto dto : result) {
+            copy.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName()));
+        }
+        return copy;
+    }
+
+    /**
+     * 대략적인 힙 사용량 (객체 헤더 + 필드 + 문자열)
+     */
+    static long estimateBytes(MemberSearchCondition key, List<MemberTeamDto> result) {
+        long size = 64 + stringBytes(key.getUsername()) + stringBytes(key.getTeamName()); // 키 + 맵 엔트리
+        size += 32 + 8L * result.size(); // 리스트 + 참조 배열
+        for (MemberTeamDto dto : result) {
+            size += 40 + 16 + 16; // dto + Long memberId, teamId
+            size += stringBytes(dto.getUsername()) + stringBytes(dto.getTeamName());
+        }
+        return size;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static class Entry {
+        private final List<MemberTeamDto> result;
+        private final long bytes;
+
+        Entry(List<MemberTeamDto> result, long bytes) {
+            this.result = result;
+            this.bytes = bytes;
+        }
+    }
+}
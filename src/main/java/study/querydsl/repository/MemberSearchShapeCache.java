@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.ConditionPredicates;
+import study.querydsl.repository.support.QueryMetrics;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 검색 쿼리는 조건(@QueryFilter 필드)의 유무에 따라 where 절 모양이 2^필드 수 가지 뿐이다.
+ * 모양(shape = ConditionPredicates#presentMask) 별로 Querydsl 이 만든 JPQL 문자열을 한 번만 만들어 두고,
+ * 요청마다 파라미터만 바인딩한다. (Querydsl 식 조립 + JPQL 직렬화 생략, 하이버네이트 쿼리 플랜 캐시 적중)
+ * 메트릭 태그와 인덱스 분석에 쓰도록 처음 본 조건으로 만든 쿼리 메타데이터도 모양 별로 같이 둔다.
+ * (QueryShape.hash 는 값을 무시하므로 다른 검색 경로의 같은 모양 쿼리와 shape 태그가 같다)
+ */
+@Component
+public class MemberSearchShapeCache {
+
+    private static final ConditionPredicates<MemberSearchCondition> conditions = ConditionPredicates.of(MemberSearchCondition.class);
+    private static final int SHAPES = 1 << conditions.size();
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final QueryMetrics queryMetrics;
+    private final AtomicReferenceArray<Shape> shapes = new AtomicReferenceArray<>(SHAPES);
+    private final Counter[] hits = new Counter[SHAPES];
+    private final Counter[] misses = new Counter[SHAPES];
+
+    public MemberSearchShapeCache(EntityManager em, JPAQueryFactory queryFactory,
+                                  QueryMetrics queryMetrics, MeterRegistry registry) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.queryMetrics = queryMetrics;
+        for (int shape = 0; shape < SHAPES; shape++) {
+            hits[shape] = Counter.builder("querydsl.search.shape")
+                    .tag("shape", conditions.describe(shape))
+                    .tag("result", "hit")
+                    .register(registry);
+            misses[shape] = Counter.builder("querydsl.search.shape")
+                    .tag("shape", conditions.describe(shape))
+                    .tag("result", "miss")
+                    .register(registry);
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        int shape = conditions.presentMask(condition);
+        Shape cached = shapes.get(shape);
+        if (cached == null) {
+            misses[shape].increment();
+            cached = new Shape(
+                    select(conditions.toParameterPredicates(shape)).toString(),
+                    select(conditions.toPredicates(condition)).getMetadata());
+            shapes.set(shape, cached);
+        } else {
+            hits[shape].increment();
+        }
+
+        TypedQuery<Object[]> query = em.createQuery(cached.jpql, Object[].class);
+        conditions.bindParameters(condition, query::setParameter);
+
+        // Querydsl fetch() 를 거치지 않으므로 직접 기록 (shape 는 다른 경로와 같은 QueryShape.hash)
+        long start = System.nanoTime();
+        List<Object[]> rows = query.getResultList();
+        queryMetrics.record("fetch", cached.metadata, start, rows.size());
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]));
+        }
+        return result;
+    }
+
+    /**
+     * 다른 검색 경로와 같은 프로젝션 (toParameterPredicates 로 만들면 값 대신 :username 등이 들어간 JPQL)
+     */
+    private JPAQuery<MemberTeamDto> select(Predicate[] predicates) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicates);
+    }
+
+    private static final class Shape {
+        private final String jpql;
+        private final QueryMetadata metadata;
+
+        Shape(String jpql, QueryMetadata metadata) {
+            this.jpql = jpql;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Predicate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.PredicateEvaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member left join team 결과의 불변 스냅샷 (InMemoryMemberSearch)
+ * - row 는 member id 순서
+ * - username, team name 동등 조건은 해시 인덱스, age 범위 조건은 (age, id) 정렬 배열로 후보를 좁힌 뒤
+ *   나머지 조건을 PredicateEvaluator 로 평가한다.
+ * - 바뀐 row 만 반영할 때는 patch 로 이전 스냅샷의 정렬 배열에 병합하고 바뀐 키의 인덱스만 다시 만든다. (전체 재정렬 X)
+ */
+final class MemberSnapshot {
+
+    static final PredicateEvaluator<Row> EVALUATOR = new PredicateEvaluator<Row>()
+            .bind(member.id, Row::getMemberId)
+            .bind(member.username, Row::getUsername)
+            .bind(member.age, Row::getAge)
+            .bind(member.team.id, Row::getTeamId)
+            .bind(member.team.name, Row::getTeamName)
+            .bind(team.id, Row::getTeamId)
+            .bind(team.name, Row::getTeamName);
+
+    private static final Row[] EMPTY = new Row[0];
+    private static final Comparator<Row> BY_ID = Comparator.comparing(Row::getMemberId);
+    private static final Comparator<Row> BY_AGE = Comparator.comparingInt(Row::getAge).thenComparing(BY_ID);
+
+    private final Row[] rows;
+    private final Map<String, Row[]> byUsername;
+    private final Map<String, Row[]> byTeamName;
+    private final Row[] byAge;
+
+    MemberSnapshot(Collection<MemberRow> members, Map<Long, String> teamNames) {
+        List<Row> sorted = new ArrayList<>(members.size());
+        for (MemberRow m : members) {
+            sorted.add(toRow(m, teamNames));
+        }
+        sorted.sort(BY_ID);
+
+        rows = sorted.toArray(EMPTY);
+        byUsername = toArrays(group(sorted, Row::getUsername));
+        byTeamName = toArrays(group(sorted, Row::getTeamName));
+        byAge = rows.clone();
+        Arrays.sort(byAge, BY_AGE);
+    }
+
+    private MemberSnapshot(Row[] rows, Map<String, Row[]> byUsername, Map<String, Row[]> byTeamName, Row[] byAge) {
+        this.rows = rows;
+        this.byUsername = byUsername;
+        this.byTeamName = byTeamName;
+        this.byAge = byAge;
+    }
+
+    /**
+     * 바뀐 row 만 반영한 새 스냅샷 (이 스냅샷은 그대로 두므로 조회 중인 쪽에 영향이 없다)
+     *
+     * @param memberIds 다시 읽은 회원 id (reloaded 에 없으면 삭제된 회원)
+     * @param reloaded  다시 읽은 회원 row
+     * @param teamIds   이름이 바뀌었을 수 있는 팀 id
+     * @param teamNames 반영 후의 팀 이름
+     */
+    MemberSnapshot patch(Set<Long> memberIds, Collection<MemberRow> reloaded, Set<Long> teamIds, Map<Long, String> teamNames) {
+        Set<Long> replaced = new HashSet<>(memberIds);
+        List<Row> removed = new ArrayList<>();
+        List<Row> added = new ArrayList<>(reloaded.size());
+        for (Long id : memberIds) {
+            int i = indexOf(id);
+            if (i >= 0) {
+                removed.add(rows[i]);
+            }
+        }
+        for (MemberRow m : reloaded) {
+            added.add(toRow(m, teamNames));
+        }
+        if (!teamIds.isEmpty()) {
+            // 팀 이름이 바뀌면 그 팀 회원 row 도 바뀐다.
+            for (Row row : rows) {
+                if (row.teamId != null && teamIds.contains(row.teamId) && replaced.add(row.memberId)) {
+                    removed.add(row);
+                    added.add(new Row(row.memberId, row.username, row.age, row.teamId, teamNames.get(row.teamId)));
+                }
+            }
+        }
+        if (replaced.isEmpty()) {
+            return this;
+        }
+        added.sort(BY_ID);
+        List<Row> addedByAge = new ArrayList<>(added);
+        addedByAge.sort(BY_AGE);
+
+        return new MemberSnapshot(
+                merge(rows, replaced, added, BY_ID),
+                patchIndex(byUsername, replaced, removed, added, Row::getUsername),
+                patchIndex(byTeamName, replaced, removed, added, Row::getTeamName),
+                merge(byAge, replaced, addedByAge, BY_AGE));
+    }
+
+    int size() {
+        return rows.length;
+    }
+
+    /**
+     * @return 평가할 수 없는 조건이 있으면 null
+     */
+    List<MemberTeamDto> search(Predicate... predicates) {
+        java.util.function.Predicate<Row> filter = EVALUATOR.compile(predicates);
+        if (filter == null) {
+            return null;
+        }
+        Row[] candidates = candidates(predicates);
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (Row row : candidates) {
+            if (filter.test(row)) {
+                result.add(row.toDto());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 최상위 and 조건 중 인덱스를 쓸 수 있는 조건으로 후보 row (id 순서)
+     */
+    private Row[] candidates(Predicate... predicates) {
+        List<Predicate> conjuncts = new ArrayList<>();
+        for (Predicate predicate : predicates) {
+            flatten(predicate, conjuncts);
+        }
+
+        Integer ageFrom = null;
+        Integer ageTo = null;
+        for (Predicate conjunct : conjuncts) {
+            if (!(conjunct instanceof Operation)) {
+                continue;
+            }
+            Operation<?> op = (Operation<?>) conjunct;
+            Object value = op.getArgs().size() == 2 && op.getArg(1) instanceof Constant
+                    ? ((Constant<?>) op.getArg(1)).getConstant() : null;
+            if (value == null) {
+                continue;
+            }
+            if (op.getOperator() == Ops.EQ && op.getArg(0).equals(member.username)) {
+                return byUsername.getOrDefault(value, EMPTY);
+            }
+            if (op.getOperator() == Ops.EQ && (op.getArg(0).equals(team.name) || op.getArg(0).equals(member.team.name))) {
+                return byTeamName.getOrDefault(value, EMPTY);
+            }
+            if (op.getArg(0).equals(member.age) && value instanceof Integer) {
+                int age = (Integer) value;
+                if (op.getOperator() == Ops.GOE || op.getOperator() == Ops.EQ) {
+                    ageFrom = ageFrom == null ? age : Math.max(ageFrom, age);
+                }
+                if (op.getOperator() == Ops.LOE || op.getOperator() == Ops.EQ) {
+                    ageTo = ageTo == null ? age : Math.min(ageTo, age);
+                }
+            }
+        }
+        if (ageFrom == null && ageTo == null) {
+            return rows;
+        }
+        int from = ageFrom == null ? 0 : lowerBound(ageFrom);
+        int to = ageTo == null ? byAge.length : lowerBound(ageTo + 1);
+        if (from >= to) {
+            return EMPTY;
+        }
+        Row[] range = Arrays.copyOfRange(byAge, from, to);
+        Arrays.sort(range, BY_ID);
+        return range;
+    }
+
+    private static void flatten(Predicate predicate, List<Predicate> conjuncts) {
+        if (predicate instanceof BooleanBuilder) {
+            flatten(((BooleanBuilder) predicate).getValue(), conjuncts);
+        } else if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            Operation<?> and = (Operation<?>) predicate;
+            flatten((Predicate) and.getArg(0), conjuncts);
+            flatten((Predicate) and.getArg(1), conjuncts);
+        } else if (predicate != null) {
+            conjuncts.add(predicate);
+        }
+    }
+
+    /**
+     * age 가 처음으로 target 이상이 되는 byAge 위치
+     */
+    private int lowerBound(int target) {
+        int low = 0;
+        int high = byAge.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (byAge[mid].age < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * id 로 rows 위치 찾기 (없으면 음수)
+     */
+    private int indexOf(Long id) {
+        int low = 0;
+        int high = rows.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = rows[mid].memberId.compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 정렬된 sorted 에서 replaced row 를 빼고 정렬된 added 를 끼워 넣는다.
+     */
+    private static Row[] merge(Row[] sorted, Set<Long> replaced, List<Row> added, Comparator<Row> order) {
+        List<Row> merged = new ArrayList<>(sorted.length + added.size());
+        int j = 0;
+        for (Row row : sorted) {
+            if (replaced.contains(row.memberId)) {
+                continue;
+            }
+            while (j < added.size() && order.compare(added.get(j), row) < 0) {
+                merged.add(added.get(j++));
+            }
+            merged.add(row);
+        }
+        while (j < added.size()) {
+            merged.add(added.get(j++));
+        }
+        return merged.toArray(EMPTY);
+    }
+
+    /**
+     * 빠지거나 들어온 row 의 키만 다시 만든다. (added 는 id 순서)
+     */
+    private static Map<String, Row[]> patchIndex(Map<String, Row[]> index, Set<Long> replaced,
+                                                 List<Row> removed, List<Row> added, Function<Row, String> key) {
+        Map<String, List<Row>> addedByKey = group(added, key);
+        Set<String> keys = new HashSet<>(addedByKey.keySet());
+        for (Row row : removed) {
+            String k = key.apply(row);
+            if (k != null) {
+                keys.add(k);
+            }
+        }
+        if (keys.isEmpty()) {
+            return index;
+        }
+        Map<String, Row[]> patched = new HashMap<>(index);
+        for (String k : keys) {
+            Row[] merged = merge(index.getOrDefault(k, EMPTY), replaced,
+                    addedByKey.getOrDefault(k, Collections.emptyList()), BY_ID);
+            if (merged.length == 0) {
+                patched.remove(k);
+            } else {
+                patched.put(k, merged);
+            }
+        }
+        return Collections.unmodifiableMap(patched);
+    }
+
+    private static Map<String, List<Row>> group(List<Row> rows, Function<Row, String> key) {
+        Map<String, List<Row>> groups = new HashMap<>();
+        for (Row row : rows) {
+            String k = key.apply(row);
+            if (k != null) {
+                groups.computeIfAbsent(k, g -> new ArrayList<>()).add(row);
+            }
+        }
+        return groups;
+    }
+
+    private static Map<String, Row[]> toArrays(Map<String, List<Row>> groups) {
+        Map<String, Row[]> result = new HashMap<>(groups.size() * 2);
+        for (Map.Entry<String, List<Row>> entry : groups.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toArray(EMPTY));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static Row toRow(MemberRow m, Map<Long, String> teamNames) {
+        String teamName = m.getTeamId() != null ? teamNames.get(m.getTeamId()) : null;
+        return new Row(m.getId(), m.getUsername(), m.getAge(), m.getTeamId(), teamName);
+    }
+
+    /**
+     * DB 에서 읽은 member 컬럼 (team 은 id 만)
+     */
+    @Getter
+    @AllArgsConstructor
+    static final class MemberRow {
+        private final Long id;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+    }
+
+    /**
+     * member left join team 한 row
+     */
+    @Getter
+    @AllArgsConstructor
+    static final class Row {
+        private final Long memberId;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+        private final String teamName;
+
+        // 호출하는 쪽에서 바꿀 수 있으므로 매번 새 DTO
+        MemberTeamDto toDto() {
+            return new MemberTeamDto(memberId, username, age, teamId, teamName);
+        }
+    }
+}
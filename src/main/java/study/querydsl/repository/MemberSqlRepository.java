@@ -0,0 +1,105 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * JPQL 로 표현할 수 없는 쿼리를 위한 Querydsl SQL 리포지토리
+ * JPA 트랜잭션의 커넥션을 그대로 사용한다. (SpringConnectionProvider)
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberSqlRepository {
+
+    private final EntityManager em;
+    private final SQLQueryFactory sqlQueryFactory;
+
+    /**
+     * content 와 total count 를 count(*) over() 윈도우 함수로 한 번에 조회
+     */
+    public Page<MemberTeamDto> searchPageWindowCount(MemberSearchCondition condition, Pageable pageable) {
+        // 영속성 컨텍스트의 쓰기 지연 SQL 은 Querydsl SQL 쿼리 전에 직접 반영해야 한다.
+        em.flush();
+
+        List<Tuple> rows = sqlQueryFactory
+                .select(member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name,
+                        SQLExpressions.count().over())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()))
+                .orderBy(member.memberId.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(new MemberTeamDto(
+                    row.get(0, Long.class),
+                    row.get(1, String.class),
+                    row.get(2, Integer.class),
+                    row.get(3, Long.class),
+                    row.get(4, String.class)));
+        }
+
+        // 범위를 벗어난 페이지는 row 가 없어서 윈도우 count 를 받을 수 없다.
+        long total = rows.isEmpty()
+                ? (pageable.getOffset() == 0 ? 0 : countQuery(condition).fetchCount())
+                : rows.get(0).get(5, Long.class);
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private SQLQuery<?> countQuery(MemberSearchCondition condition) {
+        return sqlQueryFactory
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()));
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
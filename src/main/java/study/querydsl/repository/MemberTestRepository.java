@@ -1,13 +1,17 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.support.PageableExecutionUtils;
-import org.springframework.util.StringUtils;
+import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkProgressListener;
+import study.querydsl.repository.support.ConditionPredicates;
+import study.querydsl.repository.support.CountCache;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -15,9 +19,12 @@ import java.util.List;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+@Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
 
-    public MemberTestRepository(Class<?> domainClass) {
+    private static final ConditionPredicates<MemberSearchCondition> conditions = ConditionPredicates.of(MemberSearchCondition.class);
+
+    public MemberTestRepository() {
         super(Member.class);
     }
 
@@ -35,58 +42,85 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     public Page<Member> searchPageByApplayPage(MemberSearchCondition condition, Pageable pageable) {
         JPAQuery<Member> query = selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+                .leftJoin(member.team, team).fetchJoin()
+                .where(conditions.toPredicates(condition));
 
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
+        // fetch join 이 있는 쿼리로는 count 를 할 수 없으므로 fetch 를 뺀 count 쿼리 사용
+        return PageableExecutionUtils.getPage(content, pageable, countQuery(query)::fetchCount);
     }
 
     public Page<Member> applyPagenation(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable, query ->
                 query.selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())));
+                        .where(conditions.toPredicates(condition)),
+                namedEntityGraph("Member.team"),
+                null);
     }
 
     public Page<Member> applyPagenation2(MemberSearchCondition condition, Pageable pageable) {
         return applyPagination(pageable, query ->
                         query.selectFrom(member)
                                 .leftJoin(member.team, team)
-                                .where(usernameEq(condition.getUsername()),
-                                        teamNameEq(condition.getTeamName()),
-                                        ageGoe(condition.getAgeGoe()),
-                                        ageLoe(condition.getAgeLoe())),
+                                .where(conditions.toPredicates(condition)),
                 countQuery -> countQuery.select(member.id)
                         .from(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())));
+                        .where(conditions.toPredicates(condition)),
+                CountCache.key("MemberTestRepository.applyPagenation2", condition.normalized()));
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    // count 쿼리를 별도 커넥션에서 content 쿼리와 동시에
+    public Page<Member> applyPagenationConcurrently(MemberSearchCondition condition, Pageable pageable) {
+        return applyPaginationConcurrently(pageable, query ->
+                        query.selectFrom(member)
+                                .leftJoin(member.team, team)
+                                .where(conditions.toPredicates(condition)),
+                countQuery -> countQuery.select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(conditions.toPredicates(condition)),
+                CountCache.key("MemberTestRepository.applyPagenationConcurrently", condition.normalized()));
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    // 조회 전용 DTO 페이징 (읽기 전용 트랜잭션 + readOnly / FlushMode.MANUAL 힌트)
+    public Page<MemberTeamDto> searchPageReadOnly(MemberSearchCondition condition, Pageable pageable) {
+        return applyReadOnlyPagination(pageable, query ->
+                        query.select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")))
+                                .from(member)
+                                .leftJoin(member.team, team)
+                                .where(conditions.toPredicates(condition)),
+                null,
+                CountCache.key("MemberTestRepository.searchPageReadOnly", condition.normalized()));
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // 조회 전용 엔티티 페이징 (읽기 전용 엔티티는 스냅샷을 만들지 않고 flush 하지 않는다)
+    public Page<Member> searchPageReadOnlyEntities(MemberSearchCondition condition, Pageable pageable) {
+        return applyReadOnlyPagination(pageable, query ->
+                        query.selectFrom(member)
+                                .leftJoin(member.team, team)
+                                .where(conditions.toPredicates(condition)),
+                null,
+                CountCache.key("MemberTestRepository.searchPageReadOnlyEntities", condition.normalized()));
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    /**
+     * ageGoe 이상 회원의 나이를 amount 만큼 더한다. chunkSize 건씩 나눠서 커밋
+     */
+    public long bulkAddAge(int ageGoe, int amount, int chunkSize, BulkProgressListener progress) {
+        return bulkUpdateInChunks(member, member.id, member.age.goe(ageGoe),
+                update -> update.set(member.age, member.age.add(amount)),
+                chunkSize, progress);
     }
 
+    public long bulkDeleteByAgeLoe(int ageLoe, int chunkSize, BulkProgressListener progress) {
+        return bulkDeleteInChunks(member, member.id, member.age.loe(ageLoe), chunkSize, progress);
+    }
 }
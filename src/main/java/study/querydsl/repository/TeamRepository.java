@@ -0,0 +1,17 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import study.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+
+    // select t from Team t where t.name = :name (쿼리 캐시 + Team 2차 캐시)
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    Optional<Team> findByName(String name);
+}
@@ -0,0 +1,28 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MultiGetExecutor;
+
+import java.util.Collection;
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+
+@RequiredArgsConstructor
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+    private final MultiGetExecutor multiGet;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Team> findAllByIds(Collection<Long> teamIds) {
+        // chunk 별로 in (...) 길이를 2 의 거듭제곱으로 맞춰서 조회, 결과는 teamIds 순서 (MultiGetExecutor)
+        return multiGet.fetch(teamIds, Team::getId, chunk -> queryFactory.selectFrom(team)
+                .where(team.id.in(chunk))
+                .fetch());
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.entity.Member;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.Objects;
+
+/**
+ * Member 의 나이 / 팀 변경을 TeamStatsMaintainer 에 넘긴다.
+ * 변경 전 값은 로딩(또는 직전 반영) 시점에 Member 에 기억해 둔 값을 쓴다.
+ */
+@RequiredArgsConstructor
+public class TeamStatsListener {
+
+    private final TeamStatsMaintainer maintainer;
+
+    @PostLoad
+    public void onLoad(Member member) {
+        member.markPersisted();
+    }
+
+    @PostPersist
+    public void onPersist(Member member) {
+        maintainer.added(teamId(member), member.getAge());
+        member.markPersisted();
+    }
+
+    @PostUpdate
+    public void onUpdate(Member member) {
+        Long teamId = teamId(member);
+        if (member.getPersistedAge() == null) {
+            // 변경 전 값을 모르면 현재 팀을 다시 계산
+            maintainer.recompute(teamId);
+        } else if (member.getPersistedAge() != member.getAge() || !Objects.equals(member.getPersistedTeamId(), teamId)) {
+            maintainer.removed(member.getPersistedTeamId(), member.getPersistedAge());
+            maintainer.added(teamId, member.getAge());
+        }
+        member.markPersisted();
+    }
+
+    @PostRemove
+    public void onRemove(Member member) {
+        if (member.getPersistedAge() == null) {
+            maintainer.recompute(teamId(member));
+        } else {
+            maintainer.removed(member.getPersistedTeamId(), member.getPersistedAge());
+        }
+    }
+
+    // 프록시 team 의 getId() 는 초기화하지 않는다
+    private static Long teamId(Member member) {
+        return member.getTeam() != null ? member.getTeam().getId() : null;
+    }
+}
@@ -0,0 +1,301 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Path;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.repository.support.BulkExecuteEvent;
+import study.querydsl.repository.support.DataChangeEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * team_stats 갱신
+ * - TeamStatsListener 가 넘긴 회원 변경분을 트랜잭션(세션) 별로 모아 두었다가
+ *   커밋 직전(하이버네이트 BeforeTransactionCompletionProcess, 마지막 flush 이후)에 같은 트랜잭션으로 반영한다.
+ *   롤백되면 반영하지 않는다.
+ * - team_stats row 는 팀 id 오름차순으로 잠근다. (동시에 같은 팀들을 바꾸는 트랜잭션끼리 교착 방지)
+ * - 최소/최대 나이가 빠지는 변경, 벌크 execute, 팀 삭제는 해당 팀을 member 에서 다시 계산한다.
+ * 스프링이 관리하는 트랜잭션의 EntityManager 에서 일어난 변경만 반영한다.
+ */
+@Slf4j
+@Component
+public class TeamStatsMaintainer {
+
+    // 엔티티 리스너는 EntityManagerFactory 를 만드는 도중에 생성되므로 나중에 꺼낸다
+    private final ObjectProvider<EntityManagerFactory> emf;
+
+    public TeamStatsMaintainer(ObjectProvider<EntityManagerFactory> emf) {
+        this.emf = emf;
+    }
+
+    void added(Long teamId, int age) {
+        PendingChanges changes = teamId != null ? pendingChanges() : null;
+        if (changes != null) {
+            changes.delta(teamId).add(age);
+        }
+    }
+
+    void removed(Long teamId, int age) {
+        PendingChanges changes = teamId != null ? pendingChanges() : null;
+        if (changes != null) {
+            changes.delta(teamId).remove(age);
+        }
+    }
+
+    void recompute(Long teamId) {
+        PendingChanges changes = teamId != null ? pendingChanges() : null;
+        if (changes != null) {
+            changes.delta(teamId).recompute = true;
+        }
+    }
+
+    /**
+     * 벌크 execute 는 실행 전에 같은 where 로 대상 팀을 찾아 둔다.
+     * 팀을 바꾸는 update 는 옮겨 가는 팀을 알 수 없으므로 전체 팀을 다시 계산한다.
+     */
+    @EventListener
+    public void onBulkExecute(BulkExecuteEvent event) {
+        if (event.isAbout(Member.class)) {
+            if (!event.isDelete() && !touchesStats(event.getUpdatedPaths())) {
+                return;
+            }
+            PendingChanges changes = pendingChanges();
+            if (changes == null) {
+                return;
+            }
+            if ((!event.isDelete() && touchesTeam(event.getUpdatedPaths())) || !(event.getPath() instanceof QMember)) {
+                changes.allTeams = true;
+                return;
+            }
+            QMember target = (QMember) event.getPath();
+            List<Long> teamIds = new JPAQueryFactory(changes.session)
+                    .select(target.team.id).distinct()
+                    .from(target)
+                    .where(event.getWhere(), target.team.isNotNull())
+                    .fetch();
+            teamIds.forEach(this::recompute);
+        } else if (event.isAbout(Team.class) && event.isDelete()) {
+            PendingChanges changes = pendingChanges();
+            if (changes == null) {
+                return;
+            }
+            if (!(event.getPath() instanceof QTeam)) {
+                changes.allTeams = true;
+                return;
+            }
+            QTeam target = (QTeam) event.getPath();
+            new JPAQueryFactory(changes.session)
+                    .select(target.id)
+                    .from(target)
+                    .where(event.getWhere())
+                    .fetch()
+                    .forEach(this::recompute);
+        }
+    }
+
+    /**
+     * 삭제된 팀의 team_stats row 정리 (팀에 회원이 남아 있으면 FK 때문에 삭제되지 않으므로 회원 변경은 없다)
+     */
+    @EventListener
+    public void onDataChange(DataChangeEvent event) {
+        if (event.isTransactionCompleted() || !(event.getEntity() instanceof Team)) {
+            return;
+        }
+        PendingChanges changes = pendingChanges();
+        Team removed = (Team) event.getEntity();
+        if (changes != null && !changes.session.contains(removed)) {
+            recompute(removed.getId());
+        }
+    }
+
+    private static boolean touchesStats(Collection<Path<?>> paths) {
+        return paths.stream().anyMatch(p -> p.equals(member.age) || isTeam(p));
+    }
+
+    private static boolean touchesTeam(Collection<Path<?>> paths) {
+        return paths.stream().anyMatch(TeamStatsMaintainer::isTeam);
+    }
+
+    private static boolean isTeam(Path<?> path) {
+        return Team.class.isAssignableFrom(path.getType());
+    }
+
+    /**
+     * 현재 트랜잭션의 변경분 (처음이면 세션에 커밋 전/후 처리를 등록)
+     * @return 스프링 트랜잭션 밖이면 null
+     */
+    private PendingChanges pendingChanges() {
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf.getObject());
+        if (em == null) {
+            log.warn("team_stats not updated: member changed outside of a Spring managed transaction");
+            return null;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(session);
+        if (changes != null) {
+            if (!changes.completed) {
+                return changes;
+            }
+            TransactionSynchronizationManager.unbindResource(session);
+        }
+
+        PendingChanges created = new PendingChanges(session);
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) created);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) created);
+        TransactionSynchronizationManager.bindResource(session, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(session);
+            }
+        });
+        return created;
+    }
+
+    private void apply(PendingChanges changes, SessionImplementor session) {
+        JPAQueryFactory query = new JPAQueryFactory(session);
+        Map<Long, Delta> deltas = changes.deltas;
+        if (changes.allTeams) {
+            deltas = new TreeMap<>();
+            TreeSet<Long> teamIds = new TreeSet<>(query.select(team.id).from(team).fetch());
+            teamIds.addAll(query.select(teamStats.teamId).from(teamStats).fetch());
+            for (Long teamId : teamIds) {
+                Delta delta = new Delta();
+                delta.recompute = true;
+                deltas.put(teamId, delta);
+            }
+        }
+
+        for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+            Long teamId = entry.getKey();
+            Delta delta = entry.getValue();
+            TeamStats stats = session.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+            if (stats == null) {
+                // 팀 row 를 잠근 뒤 다시 확인 (같은 팀의 row 를 동시에 insert 하지 않도록)
+                if (session.find(Team.class, teamId, LockModeType.PESSIMISTIC_WRITE) == null) {
+                    continue;
+                }
+                stats = session.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+                if (stats == null) {
+                    stats = new TeamStats(teamId);
+                    session.persist(stats);
+                    delta.recompute = true;
+                }
+            }
+            if (delta.needsRecompute(stats)) {
+                recomputeFromMembers(query, session, stats);
+            } else {
+                stats.add(delta.count, delta.sum, delta.addedMin, delta.addedMax);
+            }
+        }
+        session.flush();
+    }
+
+    private static void recomputeFromMembers(JPAQueryFactory query, SessionImplementor session, TeamStats stats) {
+        Tuple row = query
+                .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team.id.eq(stats.getTeamId()))
+                .fetchOne();
+        long count = row.get(member.count());
+        if (count == 0 && query.selectOne().from(team).where(team.id.eq(stats.getTeamId())).fetchFirst() == null) {
+            session.remove(stats);
+            return;
+        }
+        Integer sum = row.get(member.age.sum());
+        stats.reset(count, sum != null ? sum : 0, row.get(member.age.min()), row.get(member.age.max()));
+    }
+
+    /**
+     * 한 트랜잭션(세션)에서 모은 팀 별 변경분
+     */
+    private final class PendingChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final SessionImplementor session;
+        private final Map<Long, Delta> deltas = new TreeMap<>(); // 팀 id 오름차순 = 잠금 순서
+        private boolean allTeams;
+        private boolean completed;
+
+        PendingChanges(SessionImplementor session) {
+            this.session = session;
+        }
+
+        Delta delta(Long teamId) {
+            return deltas.computeIfAbsent(teamId, id -> new Delta());
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (!completed && (allTeams || !deltas.isEmpty())) {
+                apply(this, session);
+            }
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            // 롤백된 변경분이 같은 세션의 다음 트랜잭션에서 반영되지 않도록
+            completed = true;
+        }
+    }
+
+    private static final class Delta {
+
+        private long count;
+        private long sum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+        private boolean recompute;
+
+        void add(int age) {
+            count++;
+            sum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            sum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+
+        /**
+         * 현재 최소/최대 나이인 회원이 빠졌으면 남은 회원에서 다시 구해야 한다.
+         */
+        boolean needsRecompute(TeamStats stats) {
+            return recompute
+                    || removedMin != null && (stats.getMinAge() == null || removedMin <= stats.getMinAge())
+                    || removedMax != null && (stats.getMaxAge() == null || removedMax >= stats.getMaxAge());
+        }
+    }
+}
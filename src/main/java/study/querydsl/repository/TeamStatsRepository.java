@@ -0,0 +1,9 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import study.querydsl.entity.TeamStats;
+
+// team_stats 도 다른 엔티티처럼 Querydsl Predicate 로 조회 (findAll(teamStats.memberCount.goe(10)) ...)
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long>, TeamStatsRepositoryCustom, QuerydslPredicateExecutor<TeamStats> {
+}
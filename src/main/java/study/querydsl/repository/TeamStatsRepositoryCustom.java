@@ -0,0 +1,9 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.TeamAgeStatsDto;
+
+import java.util.List;
+
+public interface TeamStatsRepositoryCustom {
+    List<TeamAgeStatsDto> findAllWithTeamName();
+}
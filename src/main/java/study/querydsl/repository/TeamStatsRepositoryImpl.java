@@ -0,0 +1,38 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.TeamAgeStatsDto;
+
+import java.util.List;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+@RequiredArgsConstructor
+public class TeamStatsRepositoryImpl implements TeamStatsRepositoryCustom {
+
+    private final JPAQueryFactory queryFactory;
+
+    /**
+     * 회원이 있는 팀의 통계 (팀 수 만큼만 읽는다, member 를 group by 하지 않는다)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TeamAgeStatsDto> findAllWithTeamName() {
+        return queryFactory
+                .select(Projections.constructor(TeamAgeStatsDto.class,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.minAge,
+                        teamStats.maxAge))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .where(teamStats.memberCount.gt(0))
+                .orderBy(team.name.asc(), team.id.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * 벌크 update / delete 실행 직전 알림 (ChangeNotifyingJPAQueryFactory)
+ * 실행 후에는 어떤 row 가 바뀌었는지 알 수 없으므로, 필요한 쪽은 같은 where 로 대상 row 를 미리 조회한다.
+ * - where : execute 할 조건 (없으면 null, 전체 row)
+ * - updatedPaths : set 한 경로 (delete 면 null)
+ */
+@Getter
+@ToString
+public class BulkExecuteEvent {
+
+    private final EntityPath<?> path;
+    private final Predicate where;
+    private final Set<Path<?>> updatedPaths;
+
+    public BulkExecuteEvent(EntityPath<?> path, Predicate where, Set<Path<?>> updatedPaths) {
+        this.path = path;
+        this.where = where;
+        this.updatedPaths = updatedPaths;
+    }
+
+    public boolean isAbout(Class<?> type) {
+        return type.isAssignableFrom(path.getType());
+    }
+
+    public boolean isDelete() {
+        return updatedPaths == null;
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.repository.support;
+
+/**
+ * 청크 단위 벌크 연산 진행 상황
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+
+    BulkProgressListener NONE = (chunkNumber, chunkRows, totalRows) -> {
+    };
+
+    /**
+     * @param chunkNumber 1 부터 시작하는 청크 번호
+     * @param chunkRows   이번 청크에서 변경된 row 수
+     * @param totalRows   지금까지 변경된 row 수
+     */
+    void onChunk(int chunkNumber, long chunkRows, long totalRows);
+}
@@ -0,0 +1,149 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 벌크 update / delete 는 영속성 컨텍스트와 엔티티 리스너를 거치지 않으므로
+ * execute() 시점에 직접 변경 알림을 보낸다. (실행 직전에는 where / set 경로를 담은 BulkExecuteEvent)
+ * QueryMetrics 가 있으면 모든 fetch* / execute() 의 실행 시간과 row 수를 기록한다. (InstrumentedJPAQuery)
+ */
+public class ChangeNotifyingJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final DataChangeNotifier notifier;
+    private final QueryMetrics metrics;
+
+    public ChangeNotifyingJPAQueryFactory(EntityManager entityManager, DataChangeNotifier notifier) {
+        this(entityManager, notifier, null);
+    }
+
+    public ChangeNotifyingJPAQueryFactory(EntityManager entityManager, DataChangeNotifier notifier, QueryMetrics metrics) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.notifier = notifier;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 같은 설정으로 다른 EntityManager 를 쓰는 팩토리 (ParallelQueryExecutor 의 별도 커넥션)
+     */
+    public static JPAQueryFactory forEntityManager(JPAQueryFactory template, EntityManager entityManager) {
+        if (template instanceof ChangeNotifyingJPAQueryFactory) {
+            ChangeNotifyingJPAQueryFactory factory = (ChangeNotifyingJPAQueryFactory) template;
+            return new ChangeNotifyingJPAQueryFactory(entityManager, factory.notifier, factory.metrics);
+        }
+        return new JPAQueryFactory(entityManager);
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        if (metrics == null) {
+            return super.query();
+        }
+        return new InstrumentedJPAQuery<Void>(entityManager, metrics);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(entityManager, path) {
+
+            private final BooleanBuilder where = new BooleanBuilder();
+            private final Set<Path<?>> updatedPaths = new LinkedHashSet<>();
+
+            @Override
+            public JPAUpdateClause where(Predicate... o) {
+                where.and(ExpressionUtils.allOf(o));
+                return super.where(o);
+            }
+
+            @Override
+            public <T> JPAUpdateClause set(Path<T> path, T value) {
+                updatedPaths.add(path);
+                return super.set(path, value);
+            }
+
+            @Override
+            public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+                updatedPaths.add(path);
+                return super.set(path, expression);
+            }
+
+            @Override
+            public <T> JPAUpdateClause setNull(Path<T> path) {
+                updatedPaths.add(path);
+                return super.setNull(path);
+            }
+
+            @Override
+            public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+                updatedPaths.addAll(paths);
+                return super.set(paths, values);
+            }
+
+            @Override
+            public long execute() {
+                notifier.notifyBulkExecute(path, where.getValue(), updatedPaths);
+                long start = System.nanoTime();
+                long count = -1;
+                try {
+                    count = super.execute();
+                } finally {
+                    record(this, start, count);
+                }
+                notifier.notifyChanged(path.getType());
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(entityManager, path) {
+
+            private final BooleanBuilder where = new BooleanBuilder();
+
+            @Override
+            public JPADeleteClause where(Predicate... o) {
+                where.and(ExpressionUtils.allOf(o));
+                return super.where(o);
+            }
+
+            @Override
+            public long execute() {
+                notifier.notifyBulkExecute(path, where.getValue(), null);
+                long start = System.nanoTime();
+                long count = -1;
+                try {
+                    count = super.execute();
+                } finally {
+                    record(this, start, count);
+                }
+                notifier.notifyChanged(path.getType());
+                return count;
+            }
+        };
+    }
+
+    /**
+     * 벌크 clause 는 메타데이터를 노출하지 않으므로 JPQL 문자열로 shape 를 구한다. (실행 빈도가 낮다)
+     */
+    private void record(Object clause, long start, long rows) {
+        if (metrics != null) {
+            metrics.record("execute", clause.toString().hashCode(), start, rows);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 변경 직후 DataChangeEvent 를 엔티티 타입 / id 별로 모았다가 트랜잭션이 커밋된 경우에만 넘겨준다.
+ * (롤백이면 버리고, 트랜잭션 밖의 변경은 바로 넘긴다)
+ * 메모리에 row 사본을 들고 있는 쪽이 커밋된 row 만 다시 읽을 때 쓴다.
+ * 모은 변경은 트랜잭션 리소스가 아니라 트랜잭션 동기화(Collector)에 둔다.
+ * REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 동기화도 같이 보류되므로 안쪽 트랜잭션의 변경은 안쪽 커밋 때 따로 넘어간다.
+ */
+public final class CommittedChanges {
+
+    private final Map<Class<?>, Set<Object>> ids = new HashMap<>();
+    private final Set<Class<?>> unknown = new HashSet<>();
+
+    /**
+     * @param owner    모으는 쪽 (트랜잭션 마다 owner 별로 하나씩 모은다)
+     * @param id       변경된 row 의 id, 벌크 execute 처럼 알 수 없으면 null
+     * @param onCommit 커밋 후 (afterCompletion) 호출
+     */
+    public static void collect(Object owner, DataChangeEvent event, Object id, Consumer<CommittedChanges> onCommit) {
+        if (event.isTransactionCompleted()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            CommittedChanges changes = new CommittedChanges();
+            changes.add(event.getEntityType(), id);
+            onCommit.accept(changes);
+            return;
+        }
+        Collector collector = null;
+        // 현재 트랜잭션의 동기화만 보인다. (보류된 바깥 트랜잭션의 동기화는 빠져 있다)
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Collector && ((Collector) synchronization).owner == owner) {
+                collector = (Collector) synchronization;
+                break;
+            }
+        }
+        if (collector == null) {
+            collector = new Collector(owner, onCommit);
+            TransactionSynchronizationManager.registerSynchronization(collector);
+        }
+        collector.changes.add(event.getEntityType(), id);
+    }
+
+    private void add(Class<?> type, Object id) {
+        if (id == null) {
+            unknown.add(type);
+        } else {
+            ids.computeIfAbsent(type, t -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * 어떤 row 인지 모르는 변경 (벌크 execute) 이 있었는지
+     */
+    public boolean hasUnknown(Class<?> type) {
+        for (Class<?> changed : unknown) {
+            if (type.isAssignableFrom(changed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Set<T> ids(Class<?> type) {
+        Set<Object> changed = ids.get(type);
+        return changed != null ? (Set<T>) Collections.unmodifiableSet(changed) : Collections.emptySet();
+    }
+
+    /**
+     * 한 트랜잭션에서 owner 가 모은 변경
+     */
+    private static final class Collector extends TransactionSynchronizationAdapter {
+
+        private final Object owner;
+        private final Consumer<CommittedChanges> onCommit;
+        private final CommittedChanges changes = new CommittedChanges();
+
+        Collector(Object owner, Consumer<CommittedChanges> onCommit) {
+            this.owner = owner;
+            this.onCommit = onCommit;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                onCommit.accept(changes);
+            }
+        }
+    }
+}
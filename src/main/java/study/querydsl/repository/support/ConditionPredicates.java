@@ -0,0 +1,276 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.filter.QueryFilter;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+
+/**
+ * &#64;QueryFilter 가 붙은 검색 조건 DTO 를 Querydsl where 조건으로 바꾼다.
+ * 필드 해석(getter MethodHandle, Q 경로, 연산자)은 타입 별로 한 번만 하고,
+ * 요청마다는 getter 호출 + 조건식 생성만 한다. (리플렉션 없음)
+ * <pre>
+ * private static final ConditionPredicates&lt;MemberSearchCondition&gt; conditions =
+ *         ConditionPredicates.of(MemberSearchCondition.class);
+ * ...
+ * .where(conditions.toPredicates(condition))
+ * </pre>
+ */
+public final class ConditionPredicates<C> {
+
+    private static final ClassValue<ConditionPredicates<?>> COMPILED = new ClassValue<ConditionPredicates<?>>() {
+        @Override
+        protected ConditionPredicates<?> computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<C> type;
+    private final Filter[] filters;
+
+    private ConditionPredicates(Class<C> type, Filter[] filters) {
+        this.type = type;
+        this.filters = filters;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <C> ConditionPredicates<C> of(Class<C> type) {
+        return (ConditionPredicates<C>) COMPILED.get(type);
+    }
+
+    /**
+     * 필드 선언 순서대로 조건식, 빠진 조건은 null (where(Predicate...) 가 null 을 무시한다)
+     */
+    public Predicate[] toPredicates(C condition) {
+        Predicate[] predicates = new Predicate[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            predicates[i] = filters[i].toPredicate(condition);
+        }
+        return predicates;
+    }
+
+    /**
+     * 값이 있는 조건의 비트 마스크 (i 번째 비트 = i 번째 필드), 조건 모양 별 캐시 키 용도
+     */
+    public int presentMask(C condition) {
+        int mask = 0;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i].value(condition) != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * mask 에 있는 조건을 값 대신 이름 있는 파라미터(:필드명)로 만든 조건식
+     * 조건 모양(presentMask) 별로 JPQL 을 한 번만 직렬화해 두고 bindParameters 로 값만 바인딩하는 용도
+     */
+    public Predicate[] toParameterPredicates(int mask) {
+        Predicate[] predicates = new Predicate[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            if ((mask & 1 << i) != 0) {
+                predicates[i] = filters[i].toParameterPredicate();
+            }
+        }
+        return predicates;
+    }
+
+    /**
+     * 값이 있는 조건을 (필드명, 값) 으로 넘긴다. (toParameterPredicates(presentMask(condition)) 의 파라미터)
+     */
+    public void bindParameters(C condition, BiConsumer<String, Object> binder) {
+        for (Filter filter : filters) {
+            Object value = filter.value(condition);
+            if (value != null) {
+                binder.accept(filter.name, filter.parameterValue(value));
+            }
+        }
+    }
+
+    /**
+     * mask 에 있는 필드명을 + 로 이은 이름 (ex. "username+ageGoe", 없으면 "none"), 메트릭 태그 용도
+     */
+    public String describe(int mask) {
+        StringJoiner name = new StringJoiner("+");
+        name.setEmptyValue("none");
+        for (int i = 0; i < filters.length; i++) {
+            if ((mask & 1 << i) != 0) {
+                name.add(filters[i].name);
+            }
+        }
+        return name.toString();
+    }
+
+    public int size() {
+        return filters.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(type.getSimpleName()).append('[');
+        for (int i = 0; i < filters.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(filters[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private static <C> ConditionPredicates<C> compile(Class<C> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<Filter> filters = new ArrayList<>();
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.add(0, c);
+        }
+        for (Class<?> c : hierarchy) {
+            for (Field field : c.getDeclaredFields()) {
+                QueryFilter annotation = field.getAnnotation(QueryFilter.class);
+                if (annotation == null || Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Path<?> path = resolvePath(annotation.root(), annotation.path());
+                Operator operator = annotation.op().operator();
+                if (!ClassUtils.isAssignable(path.getType(), field.getType())) {
+                    throw new IllegalStateException(c.getSimpleName() + "." + field.getName() + " (" + field.getType().getSimpleName()
+                            + ") does not match " + path + " (" + path.getType().getSimpleName() + ")");
+                }
+                if ((operator == Ops.STRING_CONTAINS || operator == Ops.STARTS_WITH) && path.getType() != String.class) {
+                    throw new IllegalStateException(annotation.op() + " needs a string path: " + path);
+                }
+                filters.add(new Filter(field.getName(), getter(lookup, type, field), path, operator,
+                        CharSequence.class.isAssignableFrom(field.getType())));
+            }
+        }
+        if (filters.size() > Integer.SIZE) {
+            throw new IllegalStateException(type.getSimpleName() + " has more than " + Integer.SIZE + " @QueryFilter fields");
+        }
+        return new ConditionPredicates<>(type, filters.toArray(new Filter[0]));
+    }
+
+    /**
+     * getter 가 있으면 getter, 없으면 필드 직접 접근. (Object)Object 로 맞춰 둔다.
+     */
+    private static MethodHandle getter(MethodHandles.Lookup lookup, Class<?> type, Field field) {
+        try {
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, field.getName());
+            Method readMethod = descriptor != null ? descriptor.getReadMethod() : null;
+            MethodHandle handle;
+            if (readMethod != null && Modifier.isPublic(readMethod.getModifiers())
+                    && Modifier.isPublic(readMethod.getDeclaringClass().getModifiers())) {
+                handle = lookup.unreflect(readMethod);
+            } else {
+                field.setAccessible(true);
+                handle = lookup.unreflectGetter(field);
+            }
+            return handle.asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("cannot access " + type.getSimpleName() + "." + field.getName(), e);
+        }
+    }
+
+    /**
+     * QMember.class + "team.name" -> QMember.member.team.name
+     */
+    private static Path<?> resolvePath(Class<?> root, String path) {
+        try {
+            Object current = defaultInstance(root);
+            for (String segment : StringUtils.tokenizeToStringArray(path, ".")) {
+                current = current.getClass().getField(segment).get(current);
+                if (current == null) {
+                    throw new IllegalStateException(path + " is not initialized in " + root.getSimpleName()
+                            + " (deep path needs @QueryInit)");
+                }
+            }
+            if (!(current instanceof Path)) {
+                throw new IllegalStateException(root.getSimpleName() + "." + path + " is not a path");
+            }
+            return (Path<?>) current;
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("unknown path " + root.getSimpleName() + "." + path, e);
+        }
+    }
+
+    private static Object defaultInstance(Class<?> root) throws IllegalAccessException {
+        for (Field field : root.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == root) {
+                return field.get(null);
+            }
+        }
+        throw new IllegalStateException(root.getSimpleName() + " has no default instance");
+    }
+
+    private static final class Filter {
+        private final String name;
+        private final MethodHandle getter;
+        private final Path<?> path;
+        private final Operator operator;
+        private final boolean text;
+
+        Filter(String name, MethodHandle getter, Path<?> path, Operator operator, boolean text) {
+            this.name = name;
+            this.getter = getter;
+            this.path = path;
+            this.operator = operator;
+            this.text = text;
+        }
+
+        Object value(Object condition) {
+            Object value;
+            try {
+                value = (Object) getter.invokeExact(condition);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("cannot read " + name, e);
+            }
+            if (text && value != null && !StringUtils.hasText((CharSequence) value)) {
+                return null;
+            }
+            return value;
+        }
+
+        Predicate toPredicate(Object condition) {
+            Object value = value(condition);
+            return value != null ? Expressions.predicate(operator, path, ConstantImpl.create(value)) : null;
+        }
+
+        Predicate toParameterPredicate() {
+            return Expressions.predicate(operator, path, Expressions.template(path.getType(), ":" + name));
+        }
+
+        /**
+         * like 로 바뀌는 연산자는 상수일 때 Querydsl 이 해 주는 이스케이프를 직접 한다. (JPQLTemplates 의 escape '!')
+         */
+        Object parameterValue(Object value) {
+            if (operator != Ops.STRING_CONTAINS && operator != Ops.STARTS_WITH) {
+                return value;
+            }
+            return value.toString().replace("!", "!!").replace("%", "!%").replace("_", "!_");
+        }
+
+        @Override
+        public String toString() {
+            return name + " -> " + path + " " + operator;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 페이징 total count 캐시 (LRU + TTL)
+ * - 키는 (쿼리 id, 검색 조건). 같은 조건이라도 count 쿼리가 다르면 다른 키다.
+ *   조건은 호출하는 쪽에서 정규화해서 넘긴다. (ex. key("MemberRepository.searchPageComplex", condition.normalized()))
+ * - 무효화 중에 계산된 count, 커밋 전 변경이 있는 트랜잭션에서 계산된 count 는 저장하지 않는다.
+ */
+@Component
+public class CountCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final DataChangeNotifier notifier;
+    private final Map<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long generation;
+
+    public CountCache(@Value("${querydsl.count-cache.max-size:1000}") int maxSize,
+                      @Value("${querydsl.count-cache.ttl-seconds:60}") long ttlSeconds,
+                      DataChangeNotifier notifier,
+                      MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.notifier = notifier;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > CountCache.this.maxSize;
+            }
+        };
+
+        FunctionCounter.builder("querydsl.count.cache", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.count.cache", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("querydsl.count.cache.size", this, CountCache::size)
+                .register(registry);
+    }
+
+    public static Key key(String queryId, Object condition) {
+        return new Key(queryId, condition);
+    }
+
+    public long get(Key key, LongSupplier countQuery) {
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(ttlNanos)) {
+                hits.incrementAndGet();
+                return entry.count;
+            }
+            startGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        long count = countQuery.getAsLong();
+        if (notifier.hasPendingChanges()) {
+            // 커밋 전 변경이 반영된 count 는 이 트랜잭션에서만 맞다
+            return count;
+        }
+
+        synchronized (this) {
+            if (startGeneration == generation) {
+                entries.put(key, new Entry(count));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 만료되지 않은 count 가 있는지 (count 쿼리를 미리 시작할지 판단하는 용도)
+     * 적중/미스 메트릭은 세지 않는다. (이어서 부르는 get 에서 한 번만 센다)
+     */
+    public synchronized boolean containsKey(Key key) {
+        Entry entry = entries.get(key);
+        return entry != null && !entry.isExpired(ttlNanos);
+    }
+
+    /**
+     * conditionFilter 에 맞는 조건의 count 를 쿼리 id 와 관계없이 지운다.
+     */
+    public synchronized void invalidate(Predicate<Object> conditionFilter) {
+        generation++;
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (conditionFilter.test(iterator.next().condition)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static final class Key {
+        private final String queryId;
+        private final Object condition;
+
+        private Key(String queryId, Object condition) {
+            this.queryId = queryId;
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return queryId.equals(key.queryId) && Objects.equals(condition, key.condition);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(queryId, condition);
+        }
+
+        @Override
+        public String toString() {
+            return queryId + condition;
+        }
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long createdAt = System.nanoTime();
+
+        Entry(long count) {
+            this.count = count;
+        }
+
+        boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - createdAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * content 쿼리에서 count 쿼리를 만든다.
+ * - where 절이 참조하지 않는 to-one left join 은 제거 (row 수가 바뀌지 않는다)
+ * - fetch join, order by, projection, offset/limit 은 count 에 필요 없으므로 버린다
+ * - distinct / group by / having 이 있으면 원래 쿼리를 그대로 사용한다
+ * ex) select count(member1) from Member member1 where member1.age >= ?1
+ */
+public final class CountQueryOptimizer {
+
+    private CountQueryOptimizer() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static JPAQuery<?> optimize(EntityManager entityManager, JPAQuery<?> query) {
+        QueryMetadata source = query.getMetadata();
+        if (source.isDistinct() || !source.getGroupBy().isEmpty() || source.getHaving() != null) {
+            return query;
+        }
+
+        List<JoinExpression> joins = source.getJoins();
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+
+        // 뒤의 join 이 앞의 alias 를 참조할 수 있으므로 뒤에서부터 판단
+        boolean[] keep = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i == 0 || !isRemovable(join) || referenced.contains(aliasOf(join))) {
+                keep[i] = true;
+                collectRoots(join.getTarget(), referenced);
+                collectRoots(join.getCondition(), referenced);
+            }
+        }
+
+        QueryMetadata count = new DefaultQueryMetadata();
+        count.setValidate(false);
+        for (int i = 0; i < joins.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            JoinExpression join = joins.get(i);
+            count.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                count.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!JPAQueryMixin.FETCH.equals(flag) && !JPAQueryMixin.FETCH_ALL_PROPERTIES.equals(flag)) {
+                    count.addJoinFlag(flag);
+                }
+            }
+        }
+        if (source.getWhere() != null) {
+            count.addWhere(source.getWhere());
+        }
+        for (QueryFlag flag : source.getFlags()) {
+            count.addFlag(flag);
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            count.setParam((ParamExpression<Object>) param.getKey(), param.getValue());
+        }
+        if (query instanceof InstrumentedJPAQuery) {
+            return ((InstrumentedJPAQuery<?>) query).withMetadata(entityManager, count);
+        }
+        return new JPAQuery<Void>(entityManager, count);
+    }
+
+    /**
+     * left join + alias 를 지정한 to-one 연관관계만 제거 대상
+     * (컬렉션 join 은 row 를 늘리고, inner join 은 row 를 줄일 수 있다)
+     */
+    private static boolean isRemovable(JoinExpression join) {
+        return join.getType() == JoinType.LEFTJOIN && isAliasedToOne(join.getTarget());
+    }
+
+    private static boolean isAliasedToOne(Expression<?> target) {
+        if (!(target instanceof Operation) || ((Operation<?>) target).getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Expression<?> association = ((Operation<?>) target).getArg(0);
+        return association instanceof Path
+                && !(association instanceof CollectionExpression)
+                && !(association instanceof MapExpression);
+    }
+
+    private static Expression<?> aliasOf(JoinExpression join) {
+        return ((Operation<?>) join.getTarget()).getArg(1);
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    private static final class RootCollector implements Visitor<Void, Set<Expression<?>>> {
+
+        static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                arg.accept(this, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                arg.accept(this, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            for (JoinExpression join : metadata.getJoins()) {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            }
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            collectRoots(metadata.getProjection(), roots);
+            for (Expression<?> groupBy : metadata.getGroupBy()) {
+                collectRoots(groupBy, roots);
+            }
+            for (OrderSpecifier<?> orderBy : metadata.getOrderBy()) {
+                collectRoots(orderBy.getTarget(), roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
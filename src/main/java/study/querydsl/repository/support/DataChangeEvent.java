@@ -0,0 +1,34 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 엔티티 변경(persist/update/remove, 벌크 execute) 알림
+ * - transactionCompleted == false : 변경 직후 (flush 시점)
+ * - transactionCompleted == true  : 변경이 포함된 트랜잭션 종료 후 (커밋/롤백)
+ * entity 는 변경 직후 이벤트에만 있다. (벌크 execute 나 트랜잭션 종료 이벤트는 null)
+ */
+@Getter
+@ToString
+public class DataChangeEvent {
+
+    private final Class<?> entityType;
+    private final boolean transactionCompleted;
+    @ToString.Exclude
+    private final Object entity;
+
+    public DataChangeEvent(Class<?> entityType, boolean transactionCompleted) {
+        this(entityType, transactionCompleted, null);
+    }
+
+    public DataChangeEvent(Class<?> entityType, boolean transactionCompleted, Object entity) {
+        this.entityType = entityType;
+        this.transactionCompleted = transactionCompleted;
+        this.entity = entity;
+    }
+
+    public boolean isAbout(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * 엔티티에 {@code @EntityListeners(DataChangeListener.class)} 로 등록
+ * (스프링 부트가 하이버네이트에 SpringBeanContainer 를 넘겨주므로 생성자 주입이 된다)
+ */
+@RequiredArgsConstructor
+public class DataChangeListener {
+
+    private final DataChangeNotifier notifier;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        notifier.notifyChanged(Hibernate.getClass(entity), entity);
+    }
+}
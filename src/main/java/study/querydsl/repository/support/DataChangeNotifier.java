@@ -0,0 +1,78 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 엔티티 변경을 {@link DataChangeEvent} 로 발행한다.
+ * 변경 즉시 한 번, 트랜잭션이 끝난 뒤 한 번 더 발행해서
+ * 커밋 전에 다른 스레드가 캐시를 다시 채워도 커밋 후에는 반드시 무효화 되도록 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataChangeNotifier {
+
+    private final ApplicationEventPublisher publisher;
+
+    public void notifyChanged(Class<?> entityType) {
+        notifyChanged(entityType, null);
+    }
+
+    /**
+     * @param entity 변경된 엔티티 (어떤 row 인지 모르는 벌크 변경이면 null)
+     */
+    public void notifyChanged(Class<?> entityType, Object entity) {
+        publisher.publishEvent(new DataChangeEvent(entityType, false, entity));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publisher.publishEvent(new DataChangeEvent(entityType, true));
+            return;
+        }
+        pendingChanges().add(entityType);
+    }
+
+    /**
+     * 벌크 execute 직전에 호출 (리스너는 같은 트랜잭션에서 대상 row 를 조회할 수 있다)
+     */
+    public void notifyBulkExecute(EntityPath<?> path, Predicate where, Set<Path<?>> updatedPaths) {
+        publisher.publishEvent(new BulkExecuteEvent(path, where, updatedPaths));
+    }
+
+    /**
+     * 현재 트랜잭션에서 변경이 있었는지 (커밋 전이라 다른 커넥션/공유 캐시에서는 보이면 안 되는 상태)
+     */
+    public boolean hasPendingChanges() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.hasResource(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Class<?>> pendingChanges() {
+        Set<Class<?>> pending = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        Set<Class<?>> changes = new LinkedHashSet<>();
+        TransactionSynchronizationManager.bindResource(this, changes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DataChangeNotifier.this);
+                for (Class<?> entityType : changes) {
+                    publisher.publishEvent(new DataChangeEvent(entityType, true));
+                }
+            }
+        });
+        return changes;
+    }
+}
@@ -0,0 +1,273 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 실행한 Querydsl 쿼리의 where / join / order by 에서 테이블 별로 쓰인 컬럼을 모으고,
+ * 실제 DB 인덱스(DatabaseMetaData)의 선두 컬럼과 비교해서 인덱스를 탈 수 없는 조건을 알려준다.
+ * QueryMetrics 가 (리포지토리 메서드, 쿼리 모양) 조합마다 한 번만 넘겨주므로 평소 쿼리 비용은 없다.
+ * 결과는 /actuator/indexadvisor
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    private static final Set<Ops> INDEXABLE = EnumSet.of(
+            Ops.EQ, Ops.EQ_IGNORE_CASE, Ops.IN, Ops.BETWEEN,
+            Ops.GOE, Ops.GT, Ops.LOE, Ops.LT,
+            Ops.STARTS_WITH, Ops.LIKE);
+
+    private final MetamodelImplementor metamodel;
+    private final DataSource dataSource;
+    private final ConcurrentMap<String, Usage> usages = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(EntityManagerFactory emf, DataSource dataSource) {
+        this.metamodel = (MetamodelImplementor) emf.unwrap(SessionFactory.class).getMetamodel();
+        this.dataSource = dataSource;
+    }
+
+    public void observe(String callSite, QueryMetadata metadata) {
+        try {
+            Map<String, Set<String>> predicates = new TreeMap<>();
+            Map<String, List<String>> orders = new TreeMap<>();
+            collect(metadata, predicates, orders);
+
+            Set<String> tables = new TreeSet<>(predicates.keySet());
+            tables.addAll(orders.keySet());
+            for (String table : tables) {
+                Set<String> columns = predicates.getOrDefault(table, Collections.emptySet());
+                List<String> orderColumns = orders.getOrDefault(table, Collections.emptyList());
+                String key = table + columns + orderColumns;
+                usages.computeIfAbsent(key, k -> new Usage(table, columns, orderColumns))
+                        .observedBy(callSite);
+            }
+        } catch (RuntimeException e) {
+            // 분석 실패가 쿼리 실행을 막으면 안 된다.
+            log.debug("index advisor could not analyze query", e);
+        }
+    }
+
+    /**
+     * 어떤 인덱스의 선두 컬럼도 아닌 조건 컬럼이 하나라도 있는 사용처 (uncovered) 와 나머지 (covered)
+     * 사용처마다 인덱스를 탈 수 없는 컬럼은 uncoveredColumns 로 알려준다.
+     */
+    public Map<String, List<Usage>> report() {
+        Map<String, List<List<String>>> indexes = indexes();
+        List<Usage> uncovered = new ArrayList<>();
+        List<Usage> covered = new ArrayList<>();
+        for (Usage usage : usages.values()) {
+            List<List<String>> tableIndexes = indexes.getOrDefault(usage.table, Collections.emptyList());
+            usage.uncoveredColumns = uncoveredColumns(usage, tableIndexes);
+            usage.covered = usage.uncoveredColumns.isEmpty();
+            (usage.covered ? covered : uncovered).add(usage);
+        }
+        Map<String, List<Usage>> report = new LinkedHashMap<>();
+        report.put("uncovered", uncovered);
+        report.put("covered", covered);
+        return report;
+    }
+
+    /**
+     * 조건 컬럼 중 선두로 하는 인덱스가 없는 컬럼 (조건이 없으면 정렬 첫 컬럼)
+     */
+    private static Set<String> uncoveredColumns(Usage usage, List<List<String>> tableIndexes) {
+        Set<String> uncovered = usage.predicateColumns.isEmpty()
+                ? new TreeSet<>(usage.orderColumns.subList(0, 1))
+                : new TreeSet<>(usage.predicateColumns);
+        for (List<String> index : tableIndexes) {
+            uncovered.remove(index.get(0));
+        }
+        return Collections.unmodifiableSet(uncovered);
+    }
+
+    private void collect(QueryMetadata metadata, Map<String, Set<String>> predicates, Map<String, List<String>> orders) {
+        collect(metadata.getWhere(), predicates, orders);
+        for (JoinExpression join : metadata.getJoins()) {
+            collect(join.getCondition(), predicates, orders);
+            // leftJoin(member.team, team) : 조인 방향에 따라 member.team_id 로 찾는다.
+            if (join.getTarget() instanceof Operation) {
+                Expression<?> association = ((Operation<?>) join.getTarget()).getArg(0);
+                if (association instanceof Path && ((Path<?>) association).getMetadata().getParent() != null) {
+                    addColumn((Path<?>) association, predicates);
+                }
+            }
+        }
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            if (order.getTarget() instanceof Path) {
+                Column column = resolve((Path<?>) order.getTarget());
+                if (column != null) {
+                    orders.computeIfAbsent(column.table, t -> new ArrayList<>()).add(column.name);
+                }
+            }
+        }
+    }
+
+    private void collect(Expression<?> expr, Map<String, Set<String>> predicates, Map<String, List<String>> orders) {
+        if (expr instanceof SubQueryExpression) {
+            collect(((SubQueryExpression<?>) expr).getMetadata(), predicates, orders);
+            return;
+        }
+        if (!(expr instanceof Operation)) {
+            return;
+        }
+        Operation<?> operation = (Operation<?>) expr;
+        Operator operator = operation.getOperator();
+        if (operator instanceof Ops && INDEXABLE.contains(operator) && operation.getArg(0) instanceof Path) {
+            addColumn((Path<?>) operation.getArg(0), predicates);
+        }
+        for (Expression<?> arg : operation.getArgs()) {
+            collect(arg, predicates, orders);
+        }
+    }
+
+    private void addColumn(Path<?> path, Map<String, Set<String>> predicates) {
+        Column column = resolve(path);
+        if (column != null) {
+            predicates.computeIfAbsent(column.table, t -> new TreeSet<>()).add(column.name);
+        }
+    }
+
+    /**
+     * member.age -> (member, age), member.team -> (member, team_id), team.name -> (team, name)
+     */
+    private Column resolve(Path<?> path) {
+        Path<?> root = path.getRoot();
+        if (root == path) {
+            return null;
+        }
+        StringBuilder property = new StringBuilder();
+        for (Path<?> p = path; p != root; p = p.getMetadata().getParent()) {
+            property.insert(0, property.length() == 0 ? p.getMetadata().getName() : p.getMetadata().getName() + ".");
+        }
+        try {
+            EntityPersister persister = metamodel.entityPersister(root.getType());
+            if (!(persister instanceof AbstractEntityPersister)) {
+                return null;
+            }
+            AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+            String[] columns = entityPersister.getPropertyColumnNames(property.toString());
+            if (columns.length == 0) {
+                return null;
+            }
+            return new Column(normalize(entityPersister.getTableName()), normalize(columns[0]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 테이블 별 인덱스 컬럼 목록 (순서대로)
+     */
+    private Map<String, List<List<String>>> indexes() {
+        Set<String> tables = new TreeSet<>();
+        for (Usage usage : usages.values()) {
+            tables.add(usage.table);
+        }
+        Map<String, List<List<String>>> result = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : tables) {
+                String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+                Map<String, TreeMap<Short, String>> columnsByIndex = new HashMap<>();
+                try (ResultSet rs = metaData.getIndexInfo(null, null, name, false, true)) {
+                    while (rs.next()) {
+                        String indexName = rs.getString("INDEX_NAME");
+                        String column = rs.getString("COLUMN_NAME");
+                        if (indexName == null || column == null) {
+                            continue;
+                        }
+                        columnsByIndex.computeIfAbsent(indexName, i -> new TreeMap<>())
+                                .put(rs.getShort("ORDINAL_POSITION"), normalize(column));
+                    }
+                }
+                List<List<String>> indexes = new ArrayList<>();
+                for (TreeMap<Short, String> columns : columnsByIndex.values()) {
+                    indexes.add(new ArrayList<>(columns.values()));
+                }
+                result.put(table, indexes);
+            }
+        } catch (SQLException e) {
+            log.warn("could not read index metadata", e);
+        }
+        return result;
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Column {
+        private final String table;
+        private final String name;
+
+        Column(String table, String name) {
+            this.table = table;
+            this.name = name;
+        }
+    }
+
+    @Getter
+    public static class Usage {
+        private final String table;
+        private final Set<String> predicateColumns;
+        private final List<String> orderColumns;
+        private final Set<String> callers = ConcurrentHashMap.newKeySet();
+        private final AtomicLong shapes = new AtomicLong();
+        private volatile boolean covered;
+        private volatile Set<String> uncoveredColumns = Collections.emptySet();
+
+        Usage(String table, Set<String> predicateColumns, List<String> orderColumns) {
+            this.table = table;
+            this.predicateColumns = predicateColumns;
+            this.orderColumns = orderColumns;
+        }
+
+        void observedBy(String callSite) {
+            callers.add(callSite);
+            shapes.incrementAndGet();
+        }
+
+        @Override
+        public String toString() {
+            return table + " where " + predicateColumns + " order by " + orderColumns
+                    + (covered ? "" : " (no index: " + uncoveredColumns + ")") + " <- " + Arrays.toString(callers.toArray());
+        }
+    }
+}
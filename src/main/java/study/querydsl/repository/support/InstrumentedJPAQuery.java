@@ -0,0 +1,98 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * fetch / fetchOne / fetchCount / fetchResults 실행 시간과 row 수를 QueryMetrics 에 기록하는 JPAQuery
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics metrics;
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics metrics) {
+        super(em);
+        this.metrics = metrics;
+    }
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetadata metadata, QueryMetrics metrics) {
+        super(em, metadata);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<T> fetch() {
+        long start = System.nanoTime();
+        long rows = -1;
+        try {
+            List<T> result = super.fetch();
+            rows = result.size();
+            return result;
+        } finally {
+            metrics.record("fetch", getMetadata(), start, rows);
+        }
+    }
+
+    @Override
+    public T fetchOne() {
+        long start = System.nanoTime();
+        long rows = -1;
+        try {
+            T result = super.fetchOne();
+            rows = result != null ? 1 : 0;
+            return result;
+        } finally {
+            metrics.record("fetchOne", getMetadata(), start, rows);
+        }
+    }
+
+    @Override
+    public long fetchCount() {
+        long start = System.nanoTime();
+        long rows = -1;
+        try {
+            long count = super.fetchCount();
+            rows = 1;
+            return count;
+        } finally {
+            metrics.record("fetchCount", getMetadata(), start, rows);
+        }
+    }
+
+    @Override
+    public QueryResults<T> fetchResults() {
+        long start = System.nanoTime();
+        long rows = -1;
+        try {
+            QueryResults<T> result = super.fetchResults();
+            rows = result.getResults().size();
+            return result;
+        } finally {
+            metrics.record("fetchResults", getMetadata(), start, rows);
+        }
+    }
+
+    private InstrumentedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryMetrics metrics) {
+        super(em, templates, metadata);
+        this.metrics = metrics;
+    }
+
+    /**
+     * 같은 계측을 유지한 채 메타데이터만 바꾼 쿼리 (CountQueryOptimizer)
+     */
+    public <U> JPAQuery<U> withMetadata(EntityManager em, QueryMetadata metadata) {
+        return new InstrumentedJPAQuery<>(em, metadata, metrics);
+    }
+
+    @Override
+    public JPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        InstrumentedJPAQuery<T> q = new InstrumentedJPAQuery<>(entityManager, templates, getMetadata().clone(), metrics);
+        q.clone(this);
+        return q;
+    }
+}
@@ -0,0 +1,143 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * id 목록으로 여러 row 를 조회한다. (multi-get)
+ * - chunk-size 개씩 나눠서 in (...) 으로 조회 (드라이버 / DB 의 파라미터 수 제한)
+ * - in 목록은 마지막 id 를 반복해서 2 의 거듭제곱 길이로 맞춘다.
+ *   목록 길이마다 SQL 이 달라지면 하이버네이트 쿼리 플랜 캐시와 DB 문장 캐시가 길이 수 만큼 늘어난다. (-> log2(chunk-size) + 1 가지)
+ * - 결과는 입력 id 순서 (중복 id 는 처음 한 번, 없는 id 는 빠진다)
+ * - parallel 이면 fetchConcurrently 의 chunk 들을 ParallelQueryExecutor 의 별도 커넥션에서 동시에 조회한다.
+ *   커넥션 허가가 없거나 병렬 쿼리 스레드가 모두 바쁘면 넘치는 chunk 는 현재 EntityManager 로 조회하고,
+ *   별도 커넥션의 chunk 가 await-timeout-ms 안에 끝나지 않으면 (커넥션 풀이 바쁨) 그 chunk 도 현재 EntityManager 로 조회한다.
+ *   엔티티 조회(fetch)는 결과가 호출한 영속성 컨텍스트에 있어야 하므로 항상 차례로 조회한다.
+ */
+@Component
+public class MultiGetExecutor {
+
+    private final EntityManager em;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final int chunkSize;
+    private final boolean parallel;
+
+    public MultiGetExecutor(EntityManager em,
+                            ParallelQueryExecutor parallelQueryExecutor,
+                            @Value("${querydsl.multi-get.chunk-size:512}") int chunkSize,
+                            @Value("${querydsl.multi-get.parallel:false}") boolean parallel) {
+        Assert.isTrue(chunkSize > 0, "querydsl.multi-get.chunk-size must be positive");
+        this.em = em;
+        this.parallelQueryExecutor = parallelQueryExecutor;
+        // 2 의 거듭제곱으로 내림 (패딩한 목록도 chunk-size 를 넘지 않는다)
+        this.chunkSize = Integer.highestOneBit(chunkSize);
+        this.parallel = parallel;
+    }
+
+    /**
+     * 현재 EntityManager 로 chunk 를 차례로 조회 (엔티티 조회용)
+     */
+    public <ID, T> List<T> fetch(Collection<ID> ids, Function<T, ID> idOf, Function<List<ID>, List<T>> chunkQuery) {
+        List<ID> distinct = distinct(ids);
+        List<T> rows = new ArrayList<>(distinct.size());
+        for (List<ID> chunk : chunks(distinct, chunkSize)) {
+            rows.addAll(chunkQuery.apply(chunk));
+        }
+        return inOrder(distinct, rows, idOf);
+    }
+
+    /**
+     * parallel 이고 chunk 가 여럿이면 별도 커넥션에서 동시에 조회 (DTO 조회용)
+     * 현재 트랜잭션에 커밋하지 않은 변경이 있으면 다른 커넥션에서 보이지 않으므로 현재 EntityManager 로 차례로 조회한다.
+     */
+    public <ID, T> List<T> fetchConcurrently(Collection<ID> ids, Function<T, ID> idOf,
+                                             BiFunction<EntityManager, List<ID>, List<T>> chunkQuery) {
+        List<ID> distinct = distinct(ids);
+        List<List<ID>> chunks = chunks(distinct, chunkSize);
+        List<T> rows = new ArrayList<>(distinct.size());
+
+        if (!parallel || chunks.size() < 2 || !parallelQueryExecutor.canRunConcurrently()) {
+            for (List<ID> chunk : chunks) {
+                rows.addAll(chunkQuery.apply(em, chunk));
+            }
+            return inOrder(distinct, rows, idOf);
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(chunks.size());
+        List<List<ID>> submitted = new ArrayList<>(chunks.size());
+        try {
+            for (List<ID> chunk : chunks) {
+                try {
+                    futures.add(parallelQueryExecutor.submit(chunkEm -> chunkQuery.apply(chunkEm, chunk)));
+                    submitted.add(chunk);
+                } catch (RejectedExecutionException e) {
+                    // 커넥션 허가가 없거나 병렬 쿼리 스레드가 모두 바쁘면 남은 chunk 는 현재 EntityManager 로
+                    rows.addAll(chunkQuery.apply(em, chunk));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                List<ID> chunk = submitted.get(i);
+                rows.addAll(parallelQueryExecutor.await(futures.get(i), () -> chunkQuery.apply(em, chunk)));
+            }
+        } finally {
+            // 먼저 실패한 chunk 가 있으면 아직 시작하지 않은 chunk 는 취소
+            futures.forEach(future -> future.cancel(false));
+        }
+        return inOrder(distinct, rows, idOf);
+    }
+
+    /**
+     * chunkSize(2 의 거듭제곱) 개씩 나누고 각 chunk 를 2 의 거듭제곱 길이로 채운다.
+     */
+    static <ID> List<List<ID>> chunks(List<ID> ids, int chunkSize) {
+        List<List<ID>> chunks = new ArrayList<>((ids.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            int to = Math.min(ids.size(), from + chunkSize);
+            List<ID> chunk = new ArrayList<>(ids.subList(from, to));
+            ID last = chunk.get(chunk.size() - 1);
+            for (int i = chunk.size(), padded = paddedSize(chunk.size()); i < padded; i++) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    static int paddedSize(int size) {
+        return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static <ID> List<ID> distinct(Collection<ID> ids) {
+        LinkedHashSet<ID> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        return new ArrayList<>(distinct);
+    }
+
+    private static <ID, T> List<T> inOrder(List<ID> ids, List<T> rows, Function<T, ID> idOf) {
+        Map<ID, T> byId = new HashMap<>(rows.size() * 2);
+        for (T row : rows) {
+            byId.putIfAbsent(idOf.apply(row), row);
+        }
+        List<T> result = new ArrayList<>(byId.size());
+        for (ID id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+}
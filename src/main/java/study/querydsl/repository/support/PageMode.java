@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+/**
+ * 페이징 조회에서 content 와 total count 를 가져오는 방식
+ */
+public enum PageMode {
+    /**
+     * content 쿼리 + count 쿼리 (JPQL, 두 번 왕복)
+     */
+    TWO_QUERIES,
+    /**
+     * content 에 count(*) over() 컬럼을 붙여서 한 번에 조회 (Querydsl SQL)
+     */
+    WINDOW_COUNT,
+    /**
+     * count 쿼리를 별도 커넥션에서 content 쿼리와 동시에 실행 ({@link ParallelQueryExecutor})
+     */
+    CONCURRENT_COUNT
+}
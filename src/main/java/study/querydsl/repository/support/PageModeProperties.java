@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 메서드 별 페이징 방식
+ * ex) querydsl.page-mode.search-page-simple=window-count
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "querydsl.page-mode")
+public class PageModeProperties {
+
+    private PageMode searchPageSimple = PageMode.TWO_QUERIES;
+    private PageMode searchPageComplex = PageMode.TWO_QUERIES;
+}
@@ -0,0 +1,167 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 요청 스레드와 별도의 EntityManager(= 별도 커넥션)로 쿼리를 병렬 실행한다.
+ * - 스레드 수는 커넥션 풀 크기의 절반을 넘지 않게 잡아서 요청 스레드가 쓸 커넥션을 남겨둔다.
+ * - 호출한 쪽은 자기 커넥션을 쥔 채로 결과를 기다리므로, 작업이 커넥션 풀을 다 쓰면 서로 커넥션을 기다리며 멈춘다.
+ *   그래서 작업은 커넥션 허가(커넥션 풀 크기의 절반)를 얻어야 제출되고, EntityManager 를 닫은 뒤에 허가를 돌려준다.
+ * - 허가가 없거나 큐가 가득 차면 submit 이 RejectedExecutionException 을 던진다.
+ *   호출한 쪽은 자기 EntityManager 로 차례로 실행한다. (호출한 스레드에서 새 EntityManager 를 열면 커넥션을 하나 더 쓰게 된다)
+ * - 허가를 얻었어도 요청 스레드들이 커넥션을 쥐고 있으면 작업이 커넥션을 못 얻을 수 있다.
+ *   await 는 await-timeout-ms 까지만 기다리고 그 뒤에는 호출한 쪽 EntityManager 로 실행한다.
+ * - 별도 커넥션이므로 호출한 트랜잭션에서 아직 커밋하지 않은 변경은 보이지 않는다.
+ */
+@Component
+public class ParallelQueryExecutor implements DisposableBean {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataChangeNotifier dataChangeNotifier;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore connections;
+    private final long awaitTimeoutMs;
+
+    public ParallelQueryExecutor(EntityManagerFactory entityManagerFactory,
+                                 DataChangeNotifier dataChangeNotifier,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+                                 @Value("${querydsl.parallel-query.threads:0}") int threads,
+                                 @Value("${querydsl.parallel-query.queue-capacity:0}") int queueCapacity,
+                                 @Value("${querydsl.parallel-query.await-timeout-ms:2000}") long awaitTimeoutMs) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataChangeNotifier = dataChangeNotifier;
+        this.connections = new Semaphore(Math.max(1, connectionPoolSize / 2));
+        this.awaitTimeoutMs = awaitTimeoutMs;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, connectionPoolSize / 2);
+        int capacity = queueCapacity > 0 ? queueCapacity : poolSize * 4;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "parallel-query-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 현재 트랜잭션에 아직 커밋되지 않은 변경이 있으면 다른 커넥션에서는 보이지 않으므로 병렬 실행하지 않는다.
+     * - flush 된 변경 : DataChangeNotifier
+     * - 아직 flush 하지 않은 변경 : 현재 영속성 컨텍스트의 쓰기 지연 SQL, dirty 엔티티
+     *   (호출한 쪽의 쿼리는 auto flush 로 보지만 다른 커넥션의 쿼리는 보지 못한다)
+     */
+    public boolean canRunConcurrently() {
+        return !dataChangeNotifier.hasPendingChanges() && !hasUnflushedChanges();
+    }
+
+    private boolean hasUnflushedChanges() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+        if (holder == null) {
+            return false;
+        }
+        SessionImplementor session = holder.getEntityManager().unwrap(SessionImplementor.class);
+        return session.getActionQueue().hasAnyQueuedActions() || session.isDirty();
+    }
+
+    /**
+     * 제출한 스레드의 QueryCallSite 와 StatementCounter 범위를 넘겨서
+     * 쿼리 메트릭과 문장 수가 호출한 리포지토리 메서드 / 요청으로 기록되게 한다.
+     * 시작하기 전에 취소된 작업은 EntityManager 를 열지 않고 허가만 돌려준다.
+     *
+     * @throws RejectedExecutionException 커넥션 허가가 없거나, 스레드가 모두 일하고 큐도 가득 찼을 때
+     */
+    public <T> CompletableFuture<T> submit(Function<EntityManager, T> query) {
+        if (!connections.tryAcquire()) {
+            throw new RejectedExecutionException("no connection permit for parallel query");
+        }
+        String callSite = QueryCallSite.current();
+        StatementCounter.Scope statements = StatementCounter.current();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!future.isDone()) {
+                        run(query, callSite, statements, future);
+                    }
+                } finally {
+                    connections.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            connections.release();
+            throw e;
+        }
+        return future;
+    }
+
+    private <T> void run(Function<EntityManager, T> query, String callSite, StatementCounter.Scope statements,
+                         CompletableFuture<T> future) {
+        String previous = QueryCallSite.enter(callSite);
+        StatementCounter.Scope previousStatements = StatementCounter.attach(statements);
+        try {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            try {
+                future.complete(query.apply(entityManager));
+            } finally {
+                entityManager.close();
+            }
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            StatementCounter.detach(previousStatements);
+            QueryCallSite.restore(previous);
+        }
+    }
+
+    /**
+     * await-timeout-ms 안에 끝나지 않으면 작업을 취소하고 호출한 쪽에서 fallback 으로 실행한다.
+     * (작업이 커넥션을 기다리는 중이면 호출한 쪽이 쥔 커넥션으로 끝내는 편이 빠르다)
+     */
+    public <T> T await(CompletableFuture<T> future, Supplier<T> fallback) {
+        try {
+            return future.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            return fallback.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("interrupted while waiting for parallel query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,250 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Querydsl Predicate 를 메모리의 row 객체에 대해 평가한다. (SQL 과 같은 3값 논리, null 비교는 unknown)
+ * 경로(Path)는 bind 로 row 의 값에 연결하고, 연결되지 않은 경로나 지원하지 않는 연산이 있으면
+ * compile 이 null 을 돌려준다. (호출하는 쪽에서 DB 로 조회)
+ */
+public final class PredicateEvaluator<R> {
+
+    private final Map<Path<?>, Function<R, ?>> columns = new HashMap<>();
+
+    public PredicateEvaluator<R> bind(Path<?> path, Function<R, ?> accessor) {
+        columns.put(path, accessor);
+        return this;
+    }
+
+    /**
+     * @return 조건이 없으면 모든 row 가 참, 평가할 수 없으면 null
+     */
+    public java.util.function.Predicate<R> compile(Predicate... predicates) {
+        Node<R> result = null;
+        for (Predicate predicate : predicates) {
+            if (predicate == null) {
+                continue;
+            }
+            Node<R> node = node(predicate);
+            if (node == null) {
+                return null;
+            }
+            result = result == null ? node : and(result, node);
+        }
+        if (result == null) {
+            return row -> true;
+        }
+        Node<R> root = result;
+        return row -> root.eval(row) == Boolean.TRUE;
+    }
+
+    private interface Node<R> {
+        /**
+         * @return TRUE / FALSE / null(unknown)
+         */
+        Boolean eval(R row);
+    }
+
+    private interface Value<R> {
+        Object get(R row);
+    }
+
+    private Node<R> node(Expression<?> expr) {
+        if (expr instanceof BooleanBuilder) {
+            Predicate value = ((BooleanBuilder) expr).getValue();
+            return value != null ? node(value) : row -> Boolean.TRUE;
+        }
+        if (!(expr instanceof Operation)) {
+            return null;
+        }
+        Operation<?> operation = (Operation<?>) expr;
+        Operator op = operation.getOperator();
+
+        if (op == Ops.AND || op == Ops.OR) {
+            Node<R> left = node(operation.getArg(0));
+            Node<R> right = node(operation.getArg(1));
+            if (left == null || right == null) {
+                return null;
+            }
+            return op == Ops.AND ? and(left, right) : or(left, right);
+        }
+        if (op == Ops.NOT) {
+            Node<R> inner = node(operation.getArg(0));
+            if (inner == null) {
+                return null;
+            }
+            return row -> {
+                Boolean value = inner.eval(row);
+                return value == null ? null : !value;
+            };
+        }
+
+        Value<R> left = value(operation.getArg(0));
+        if (left == null) {
+            return null;
+        }
+        if (op == Ops.IS_NULL) {
+            return row -> left.get(row) == null;
+        }
+        if (op == Ops.IS_NOT_NULL) {
+            return row -> left.get(row) != null;
+        }
+        if (op == Ops.BETWEEN) {
+            Object from = constant(operation.getArg(1));
+            Object to = constant(operation.getArg(2));
+            if (from == null || to == null) {
+                return null;
+            }
+            return row -> {
+                Object value = left.get(row);
+                return value == null ? null : compare(value, from) >= 0 && compare(value, to) <= 0;
+            };
+        }
+        if (op == Ops.IN) {
+            Object values = constant(operation.getArg(1));
+            if (!(values instanceof Collection)) {
+                return null;
+            }
+            Collection<?> candidates = (Collection<?>) values;
+            return row -> {
+                Object value = left.get(row);
+                if (value == null) {
+                    return null;
+                }
+                for (Object candidate : candidates) {
+                    if (compare(value, candidate) == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        if (operation.getArgs().size() != 2) {
+            return null;
+        }
+        Object right = constant(operation.getArg(1));
+        if (right == null) {
+            return null;
+        }
+        Comparison comparison = comparison(op);
+        if (comparison == null) {
+            return null;
+        }
+        return row -> {
+            Object value = left.get(row);
+            return value == null ? null : comparison.test(value, right);
+        };
+    }
+
+    private interface Comparison {
+        boolean test(Object left, Object right);
+    }
+
+    private static Comparison comparison(Operator op) {
+        if (op == Ops.EQ) {
+            return (l, r) -> compare(l, r) == 0;
+        }
+        if (op == Ops.NE) {
+            return (l, r) -> compare(l, r) != 0;
+        }
+        if (op == Ops.GOE) {
+            return (l, r) -> compare(l, r) >= 0;
+        }
+        if (op == Ops.GT) {
+            return (l, r) -> compare(l, r) > 0;
+        }
+        if (op == Ops.LOE) {
+            return (l, r) -> compare(l, r) <= 0;
+        }
+        if (op == Ops.LT) {
+            return (l, r) -> compare(l, r) < 0;
+        }
+        if (op == Ops.EQ_IGNORE_CASE) {
+            return (l, r) -> l.toString().equalsIgnoreCase(r.toString());
+        }
+        if (op == Ops.STRING_CONTAINS) {
+            return (l, r) -> l.toString().contains(r.toString());
+        }
+        if (op == Ops.STARTS_WITH) {
+            return (l, r) -> l.toString().startsWith(r.toString());
+        }
+        if (op == Ops.ENDS_WITH) {
+            return (l, r) -> l.toString().endsWith(r.toString());
+        }
+        return null;
+    }
+
+    private Value<R> value(Expression<?> expr) {
+        Function<R, ?> accessor = columns.get(expr);
+        if (accessor == null) {
+            return null;
+        }
+        return accessor::apply;
+    }
+
+    private static Object constant(Expression<?> expr) {
+        return expr instanceof Constant ? ((Constant<?>) expr).getConstant() : null;
+    }
+
+    /**
+     * Integer 와 Long 처럼 타입이 다른 숫자도 값으로 비교
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            Number l = (Number) left;
+            Number r = (Number) right;
+            if (isIntegral(l) && isIntegral(r)) {
+                return Long.compare(l.longValue(), r.longValue());
+            }
+            return Double.compare(l.doubleValue(), r.doubleValue());
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long
+                || number instanceof Short || number instanceof Byte;
+    }
+
+    private static <R> Node<R> and(Node<R> left, Node<R> right) {
+        return row -> {
+            Boolean l = left.eval(row);
+            if (l == Boolean.FALSE) {
+                return false;
+            }
+            Boolean r = right.eval(row);
+            if (r == Boolean.FALSE) {
+                return false;
+            }
+            return l == null || r == null ? null : Boolean.TRUE;
+        };
+    }
+
+    private static <R> Node<R> or(Node<R> left, Node<R> right) {
+        return row -> {
+            Boolean l = left.eval(row);
+            if (l == Boolean.TRUE) {
+                return true;
+            }
+            Boolean r = right.eval(row);
+            if (r == Boolean.TRUE) {
+                return true;
+            }
+            return l == null || r == null ? null : Boolean.FALSE;
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.repository.support;
+
+/**
+ * 지금 실행 중인 리포지토리 메서드 (ex. "MemberJpaRepository.search")
+ * RepositoryCallSiteAspect 가 채우고 QueryMetrics 가 태그로 사용한다.
+ */
+public final class QueryCallSite {
+
+    public static final String UNKNOWN = "unknown";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private QueryCallSite() {
+    }
+
+    public static String current() {
+        String callSite = CURRENT.get();
+        return callSite != null ? callSite : UNKNOWN;
+    }
+
+    /**
+     * @return 이전 값 (restore 에 넘긴다)
+     */
+    public static String enter(String callSite) {
+        String previous = CURRENT.get();
+        CURRENT.set(callSite);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
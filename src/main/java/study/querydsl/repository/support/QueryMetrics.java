@@ -0,0 +1,113 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Querydsl 쿼리 실행 시간 / 결과 row 수
+ * - querydsl.query{method, operation, shape} : 지연시간 (p50, p95, p99 + 히스토그램)
+ * - querydsl.query.rows{method, operation, shape} : 결과 row 수 (execute 는 변경된 row 수)
+ * 미터는 태그 조합 별로 한 번만 등록하고 이후에는 맵 조회 + 기록만 한다.
+ */
+@Component
+public class QueryMetrics {
+
+    private final MeterRegistry registry;
+    private final IndexAdvisor indexAdvisor;
+    private final ConcurrentMap<MeterKey, Meters> meters = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry, IndexAdvisor indexAdvisor) {
+        this.registry = registry;
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    public void record(String operation, QueryMetadata metadata, long startNanos, long rows) {
+        record(operation, QueryShape.hash(metadata), metadata, startNanos, rows);
+    }
+
+    /**
+     * @param rows 음수면 (예외) 지연시간만 기록
+     */
+    public void record(String operation, int shape, long startNanos, long rows) {
+        record(operation, shape, null, startNanos, rows);
+    }
+
+    private void record(String operation, int shape, QueryMetadata metadata, long startNanos, long rows) {
+        long elapsed = System.nanoTime() - startNanos;
+        MeterKey key = new MeterKey(QueryCallSite.current(), operation, shape);
+        Meters target = meters.get(key);
+        if (target == null) {
+            // 처음 보는 (메서드, 쿼리 모양) 조합만 인덱스 분석
+            target = meters.computeIfAbsent(key, k -> {
+                if (metadata != null) {
+                    indexAdvisor.observe(k.method, metadata);
+                }
+                return register(k);
+            });
+        }
+        target.latency.record(elapsed, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            target.rows.record(rows);
+        }
+    }
+
+    private Meters register(MeterKey key) {
+        String shape = Integer.toHexString(key.shape);
+        Timer latency = Timer.builder("querydsl.query")
+                .tag("method", key.method)
+                .tag("operation", key.operation)
+                .tag("shape", shape)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+        DistributionSummary rows = DistributionSummary.builder("querydsl.query.rows")
+                .tag("method", key.method)
+                .tag("operation", key.operation)
+                .tag("shape", shape)
+                .register(registry);
+        return new Meters(latency, rows);
+    }
+
+    private static class Meters {
+        private final Timer latency;
+        private final DistributionSummary rows;
+
+        Meters(Timer latency, DistributionSummary rows) {
+            this.latency = latency;
+            this.rows = rows;
+        }
+    }
+
+    private static final class MeterKey {
+        private final String method;
+        private final String operation;
+        private final int shape;
+
+        MeterKey(String method, String operation, int shape) {
+            this.method = method;
+            this.operation = operation;
+            this.shape = shape;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MeterKey)) return false;
+            MeterKey that = (MeterKey) o;
+            return shape == that.shape && method.equals(that.method) && operation.equals(that.operation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, operation, shape);
+        }
+    }
+}
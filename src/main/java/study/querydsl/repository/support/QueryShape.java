@@ -0,0 +1,105 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+/**
+ * 파라미터 값을 뺀 쿼리 구조의 해시 (같은 JPQL 모양이면 같은 값)
+ * 문자열로 직렬화하지 않고 메타데이터를 한 번 순회해서 계산한다.
+ * JVM 이 바뀌어도 같은 값이 나오도록 identity hashCode 는 쓰지 않는다.
+ */
+public final class QueryShape implements Visitor<Integer, Void> {
+
+    private static final QueryShape INSTANCE = new QueryShape();
+
+    private QueryShape() {
+    }
+
+    public static int hash(QueryMetadata metadata) {
+        int hash = metadata.isDistinct() ? 1 : 0;
+        for (JoinExpression join : metadata.getJoins()) {
+            hash = 31 * hash + join.getType().name().hashCode();
+            hash = 31 * hash + join.getFlags().size();
+            hash = 31 * hash + hash(join.getTarget());
+            hash = 31 * hash + hash(join.getCondition());
+        }
+        hash = 31 * hash + hash(metadata.getWhere());
+        for (Expression<?> groupBy : metadata.getGroupBy()) {
+            hash = 31 * hash + hash(groupBy);
+        }
+        hash = 31 * hash + hash(metadata.getHaving());
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            hash = 31 * hash + hash(order.getTarget());
+            hash = 31 * hash + order.getOrder().name().hashCode();
+        }
+        hash = 31 * hash + hash(metadata.getProjection());
+        hash = 31 * hash + (metadata.getModifiers().getLimit() != null ? 1 : 0);
+        hash = 31 * hash + (metadata.getModifiers().getOffset() != null ? 1 : 0);
+        return hash;
+    }
+
+    private static int hash(Expression<?> expr) {
+        return expr == null ? 0 : expr.accept(INSTANCE, null);
+    }
+
+    @Override
+    public Integer visit(Constant<?> expr, Void context) {
+        // 값은 무시하고 타입만
+        return expr.getType().getName().hashCode();
+    }
+
+    @Override
+    public Integer visit(FactoryExpression<?> expr, Void context) {
+        int hash = expr.getType().getName().hashCode();
+        for (Expression<?> arg : expr.getArgs()) {
+            hash = 31 * hash + hash(arg);
+        }
+        return hash;
+    }
+
+    @Override
+    public Integer visit(Operation<?> expr, Void context) {
+        int hash = expr.getOperator().name().hashCode();
+        for (Expression<?> arg : expr.getArgs()) {
+            hash = 31 * hash + hash(arg);
+        }
+        return hash;
+    }
+
+    @Override
+    public Integer visit(ParamExpression<?> expr, Void context) {
+        return expr.getName().hashCode();
+    }
+
+    @Override
+    public Integer visit(Path<?> expr, Void context) {
+        PathMetadata metadata = expr.getMetadata();
+        int hash = metadata.getName().hashCode();
+        return metadata.getParent() == null ? hash : 31 * hash + hash(metadata.getParent());
+    }
+
+    @Override
+    public Integer visit(SubQueryExpression<?> expr, Void context) {
+        return hash(expr.getMetadata());
+    }
+
+    @Override
+    public Integer visit(TemplateExpression<?> expr, Void context) {
+        int hash = expr.getTemplate().toString().hashCode();
+        for (Object arg : expr.getArgs()) {
+            hash = 31 * hash + (arg instanceof Expression ? hash((Expression<?>) arg) : 0);
+        }
+        return hash;
+    }
+}
@@ -2,9 +2,16 @@ package study.querydsl.repository.support;
 
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import org.hibernate.FlushMode;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,12 +21,22 @@ import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
 import javax.annotation.PostConstruct;
+import javax.persistence.Cache;
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -34,6 +51,11 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private CountCache countCache;
+    private ParallelQueryExecutor parallelQueryExecutor;
+    private PlatformTransactionManager transactionManager;
+    private TransactionTemplate readOnlyTransaction;
+    private DataChangeNotifier dataChangeNotifier;
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
@@ -48,7 +70,32 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+    /**
+     * 벌크 execute() 변경 알림이 붙은 애플리케이션 공용 JPAQueryFactory 를 사용한다.
+     */
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        this.queryFactory = queryFactory;
+    }
+    @Autowired(required = false)
+    public void setCountCache(CountCache countCache) {
+        this.countCache = countCache;
+    }
+    @Autowired(required = false)
+    public void setParallelQueryExecutor(ParallelQueryExecutor parallelQueryExecutor) {
+        this.parallelQueryExecutor = parallelQueryExecutor;
+    }
+    @Autowired(required = false)
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    @Autowired(required = false)
+    public void setDataChangeNotifier(DataChangeNotifier dataChangeNotifier) {
+        this.dataChangeNotifier = dataChangeNotifier;
     }
     @PostConstruct
     public void validate() {
@@ -73,18 +120,243 @@ public abstract class Querydsl4RepositorySupport {
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        return applyPagination(pageable, contentQuery, (CountCache.Key) null);
+    }
+    /**
+     * @param countCacheKey null 이 아니면 total count 를 {@link CountCache} 에 이 키로 캐시한다.
+     *                      ex) CountCache.key("MemberTestRepository.applyPagenation2", condition.normalized())
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, CountCache.Key countCacheKey) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<?> countResult = countQuery(jpaQuery);
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                cachedCount(countCacheKey, countResult::fetchCount));
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
+        return applyPagination(pageable, contentQuery, countQuery, null);
+    }
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+            JPAQuery> countQuery, CountCache.Key countCacheKey) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        JPAQuery<?> countResult = countQuery(countQuery.apply(getQueryFactory()));
+        return PageableExecutionUtils.getPage(content, pageable,
+                cachedCount(countCacheKey, countResult::fetchCount));
+    }
+    /**
+     * content 쿼리에만 entity graph 를 fetch graph 로 적용한다. (lazy 연관관계 N+1 방지)
+     * count 쿼리는 graph 를 적용하기 전의 쿼리로 만들므로 fetch 조인이 붙지 않는다.
+     * ex) applyPagination(pageable, query -> query.selectFrom(member)..., entityGraph("team"), null)
+     * - to-one 연관관계만 지정할 것. 컬렉션을 fetch 하면 페이징이 메모리에서 일어난다. (컬렉션은 batch fetch)
+     */
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                          EntityGraph<?> fetchGraph, CountCache.Key countCacheKey) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<?> countResult = countQuery(jpaQuery);
+        JPAQuery<?> jpaContentQuery = jpaQuery.clone();
+        jpaContentQuery.setHint(QueryHints.HINT_FETCHGRAPH, fetchGraph);
+        List<T> content = getQuerydsl().applyPagination(pageable, (JPAQuery<T>) jpaContentQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+                cachedCount(countCacheKey, countResult::fetchCount));
+    }
+    /**
+     * 도메인 클래스의 attributeNodes 를 함께 로딩하는 entity graph
+     */
+    @SuppressWarnings("unchecked")
+    protected EntityGraph<?> entityGraph(String... attributeNodes) {
+        EntityGraph<?> graph = getEntityManager().createEntityGraph((Class<Object>) domainClass);
+        graph.addAttributeNodes(attributeNodes);
+        return graph;
+    }
+    /**
+     * 엔티티에 @NamedEntityGraph 로 선언한 entity graph
+     */
+    protected EntityGraph<?> namedEntityGraph(String graphName) {
+        return getEntityManager().getEntityGraph(graphName);
+    }
+    /**
+     * 조회 전용 페이징 (DTO 프로젝션 등)
+     * - 읽기 전용 트랜잭션 안에서 content / count 를 실행한다. (이미 트랜잭션이 있으면 참여)
+     * - org.hibernate.readOnly 힌트 : 엔티티를 조회해도 dirty checking 스냅샷을 만들지 않는다.
+     * - 새로 시작한 트랜잭션이면 FlushMode.MANUAL 힌트로 쿼리 전 auto flush 검사도 생략한다.
+     *   (참여한 트랜잭션에는 아직 flush 하지 않은 변경이 있을 수 있으므로 flush 모드는 건드리지 않는다)
+     * ex) applyReadOnlyPagination(pageable, query -> query.select(new QMemberTeamDto(...)).from(member)..., null, null)
+     *
+     * @param countQuery null 이면 content 쿼리에서 count 쿼리를 만든다.
+     */
+    protected <T> Page<T> applyReadOnlyPagination(Pageable pageable,
+                                                  Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                  Function<JPAQueryFactory, JPAQuery<?>> countQuery,
+                                                  CountCache.Key countCacheKey) {
+        Assert.state(readOnlyTransaction != null, "PlatformTransactionManager must not be null!");
+        boolean manualFlush = !TransactionSynchronizationManager.isActualTransactionActive();
+        return readOnlyTransaction.execute(status -> {
+            JPAQuery<T> jpaContentQuery = readOnly(contentQuery.apply(getQueryFactory()), manualFlush);
+            JPAQuery<?> countResult = readOnly(countQuery(countQuery != null
+                    ? countQuery.apply(getQueryFactory()) : jpaContentQuery), manualFlush);
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    cachedCount(countCacheKey, countResult::fetchCount));
+        });
+    }
+    private static <Q extends JPAQuery<?>> Q readOnly(Q query, boolean manualFlush) {
+        query.setHint(QueryHints.HINT_READONLY, true);
+        if (manualFlush) {
+            query.setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+    /**
+     * count 쿼리를 별도 커넥션에서 content 쿼리와 동시에 실행한다. (페이지 응답시간 = max(content, count))
+     * - count 가 필요 없는 페이지(PageableExecutionUtils)면 count 결과는 버린다.
+     * - 현재 트랜잭션에 커밋 전 변경(flush 전 포함)이 있거나, count 가 캐시에 있거나,
+     *   커넥션 허가가 없거나 병렬 쿼리 스레드가 모두 바쁘면 현재 EntityManager 로 순서대로 실행한다.
+     * - 별도 커넥션의 count 가 await-timeout-ms 안에 끝나지 않으면 현재 EntityManager 로 count 한다.
+     */
+    protected <T> Page<T> applyPaginationConcurrently(Pageable pageable,
+                                                      Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
+            JPAQuery> countQuery, CountCache.Key countCacheKey) {
+        CompletableFuture<Long> countResult = parallelQueryExecutor != null && parallelQueryExecutor.canRunConcurrently()
+                && (countCacheKey == null || countCache == null || !countCache.containsKey(countCacheKey))
+                ? submitCountQuery(countQuery)
+                : null;
+        if (countResult == null) {
+            return applyPagination(pageable, contentQuery, countQuery, countCacheKey);
+        }
+        try {
+            JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    cachedCount(countCacheKey, () -> parallelQueryExecutor.await(countResult,
+                            () -> countQuery(countQuery.apply(getQueryFactory())).fetchCount())));
+        } finally {
+            countResult.cancel(false);
+        }
+    }
+    /**
+     * @return 커넥션 허가가 없거나 병렬 쿼리 스레드가 모두 바쁘면 null
+     */
+    private CompletableFuture<Long> submitCountQuery(Function<JPAQueryFactory, JPAQuery> countQuery) {
+        try {
+            return parallelQueryExecutor.submit(em ->
+                    CountQueryOptimizer.optimize(em, countQuery.apply(ChangeNotifyingJPAQueryFactory.forEntityManager(getQueryFactory(), em))).fetchCount());
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+    /**
+     * where 절이 참조하지 않는 to-one left join, fetch join, order by, projection 을 뺀 count 쿼리
+     * @see CountQueryOptimizer
+     */
+    protected JPAQuery<?> countQuery(JPAQuery<?> query) {
+        return CountQueryOptimizer.optimize(getEntityManager(), query);
+    }
+    private LongSupplier cachedCount(CountCache.Key countCacheKey, LongSupplier countQuery) {
+        if (countCacheKey == null || countCache == null) {
+            return countQuery;
+        }
+        return () -> countCache.get(countCacheKey, countQuery);
+    }
+    /**
+     * 벌크 update 를 id 순서로 chunkSize 건씩 나눠서 청크마다 별도 트랜잭션으로 커밋한다.
+     * - 한 번에 전체 테이블에 락을 오래 잡지 않는다.
+     * - 청크가 끝날 때마다 변경된 엔티티만 현재 영속성 컨텍스트와 2차 캐시에서 제거한다. (em.clear() 불필요)
+     * - 청크는 REQUIRES_NEW 로 실행되므로 커밋 전 변경이 있는 트랜잭션 안에서는 호출할 수 없다. (같은 row 락 대기)
+     *
+     * @param where       벌크 update 에서 쓸 수 있도록 조인 없이 entity 자신의 경로만 참조해야 한다.
+     * @param assignments ex) clause -> clause.set(member.age, member.age.add(1))
+     * @return 변경된 row 수
+     */
+    protected long bulkUpdateInChunks(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                      Consumer<JPAUpdateClause> assignments,
+                                      int chunkSize, BulkProgressListener progress) {
+        return executeInChunks(entity, id, where, chunkSize, progress, (first, last) -> {
+            JPAUpdateClause update = getQueryFactory().update(entity);
+            assignments.accept(update);
+            return update.where(where, id.between(first, last)).execute();
+        });
+    }
+    /**
+     * 벌크 delete 를 id 순서로 chunkSize 건씩 나눠서 청크마다 별도 트랜잭션으로 커밋한다.
+     * @see #bulkUpdateInChunks
+     */
+    protected long bulkDeleteInChunks(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                      int chunkSize, BulkProgressListener progress) {
+        return executeInChunks(entity, id, where, chunkSize, progress, (first, last) ->
+                getQueryFactory().delete(entity)
+                        .where(where, id.between(first, last))
+                        .execute());
+    }
+    private long executeInChunks(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                 int chunkSize, BulkProgressListener progress, ChunkStatement statement) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be positive!");
+        Assert.state(transactionManager != null, "PlatformTransactionManager must not be null!");
+        Assert.state(dataChangeNotifier == null || !dataChangeNotifier.hasPendingChanges(),
+                "Chunked bulk operations can not run inside a transaction with uncommitted changes");
+
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        long total = 0;
+        int chunkNumber = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = chunkTransaction.execute(status -> {
+                // 다음 청크의 id 를 keyset 으로 조회 (offset 없이 id > 직전 청크의 마지막 id)
+                List<Long> ids = getQueryFactory()
+                        .select(id)
+                        .from(entity)
+                        .where(where, after == null ? null : id.gt(after))
+                        .orderBy(id.asc())
+                        .limit(chunkSize)
+                        .fetch();
+                if (ids.isEmpty()) {
+                    return new Chunk(ids, 0);
+                }
+                return new Chunk(ids, statement.execute(ids.get(0), ids.get(ids.size() - 1)));
+            });
+            if (chunk.ids.isEmpty()) {
+                return total;
+            }
+
+            evict(entity.getType(), chunk.ids);
+            total += chunk.rows;
+            progress.onChunk(++chunkNumber, chunk.rows, total);
+            lastId = chunk.ids.get(chunk.ids.size() - 1);
+        }
+    }
+    /**
+     * 벌크 연산으로 바뀐 엔티티만 현재 영속성 컨텍스트에서 detach, 2차 캐시에서 evict
+     */
+    private void evict(Class<?> entityType, List<Long> ids) {
+        Cache cache = getEntityManager().getEntityManagerFactory().getCache();
+        SessionImplementor session = getEntityManager().unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityType);
+        for (Long id : ids) {
+            cache.evict(entityType, id);
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+            if (managed != null) {
+                getEntityManager().detach(managed);
+            }
+        }
+    }
+    @FunctionalInterface
+    private interface ChunkStatement {
+        long execute(Long firstId, Long lastId);
+    }
+    private static class Chunk {
+        private final List<Long> ids;
+        private final long rows;
+        Chunk(List<Long> ids, long rows) {
+            this.ids = ids;
+            this.rows = rows;
+        }
     }
 }
@@ -0,0 +1,39 @@
+package study.querydsl.repository.support;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 리포지토리 메서드 실행 중에 QueryCallSite 를 "클래스.메서드" 로 설정한다.
+ * 중첩 호출이면 가장 안쪽 메서드로 기록하고 끝나면 바깥 값으로 되돌린다.
+ */
+@Aspect
+@Component
+public class RepositoryCallSiteAspect {
+
+    private final ConcurrentMap<Method, String> names = new ConcurrentHashMap<>();
+
+    @Around("execution(public * study.querydsl.repository.*Repository*.*(..))")
+    public Object callSite(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = names.get(method);
+        if (name == null) {
+            name = names.computeIfAbsent(method,
+                    m -> m.getDeclaringClass().getSimpleName() + "." + m.getName());
+        }
+
+        String previous = QueryCallSite.enter(name);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            QueryCallSite.restore(previous);
+        }
+    }
+}
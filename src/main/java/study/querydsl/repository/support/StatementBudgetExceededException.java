@@ -0,0 +1,11 @@
+package study.querydsl.repository.support;
+
+/**
+ * 한 요청에서 허용한 JDBC 문장 수를 넘었다. (N+1 의심)
+ */
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String name, int budget, long executed) {
+        super("SQL statement budget exceeded: " + name + " executed " + executed + " statements (budget " + budget + ")");
+    }
+}
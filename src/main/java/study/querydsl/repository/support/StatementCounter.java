@@ -0,0 +1,105 @@
+package study.querydsl.repository.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 스레드(요청/테스트) 단위로 실행된 JDBC 문장 수를 센다. (p6spy JdbcEventListener 빈으로 등록)
+ * - open() 으로 범위를 시작한 스레드에서만 센다.
+ * - budget 을 넘으면 failOnExceed 일 때 문장을 실행하기 전에 StatementBudgetExceededException 을 던진다.
+ */
+@Component
+public class StatementCounter extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.increment();
+        }
+    }
+
+    /**
+     * @param budget 0 이면 제한 없음
+     */
+    public static Scope open(String name, int budget, boolean failOnExceed) {
+        Scope scope = new Scope(name, budget, failOnExceed, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 다른 스레드에서 같은 범위로 세도록 붙인다. (ParallelQueryExecutor)
+     * @return 이전 범위 (detach 에 넘긴다)
+     */
+    public static Scope attach(Scope scope) {
+        Scope previous = CURRENT.get();
+        CURRENT.set(scope);
+        return previous;
+    }
+
+    public static void detach(Scope previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final String name;
+        private final int budget;
+        private final boolean failOnExceed;
+        private final Scope previous;
+        private final AtomicLong count = new AtomicLong();
+
+        private Scope(String name, int budget, boolean failOnExceed, Scope previous) {
+            this.name = name;
+            this.budget = budget;
+            this.failOnExceed = failOnExceed;
+            this.previous = previous;
+        }
+
+        private void increment() {
+            long executed = count.incrementAndGet();
+            if (failOnExceed && isExceeded()) {
+                throw new StatementBudgetExceededException(name, budget, executed);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public long count() {
+            return count.get();
+        }
+
+        public void reset() {
+            count.set(0);
+        }
+
+        public boolean isExceeded() {
+            return budget > 0 && count.get() > budget;
+        }
+
+        @Override
+        public void close() {
+            detach(previous);
+        }
+    }
+}
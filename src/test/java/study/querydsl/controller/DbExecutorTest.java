@@ -0,0 +1,102 @@
+package study.querydsl.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DbExecutorTest {
+
+    // 스레드 1개 + 대기 1개
+    DbExecutor dbExecutor = new DbExecutor(10, 1, 1, false, new SimpleMeterRegistry());
+
+    @AfterEach
+    public void after() {
+        dbExecutor.destroy();
+    }
+
+    @Test
+    public void rejectWhenSaturated() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = dbExecutor.submit(() -> await(release, "running"));
+        CompletableFuture<String> queued = dbExecutor.submit(() -> await(release, "queued"));
+
+        //when, then
+        assertThatThrownBy(() -> dbExecutor.submit(() -> "rejected"))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(dbExecutor.inFlight()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(running.get()).isEqualTo("running");
+        assertThat(queued.get()).isEqualTo("queued");
+    }
+
+    @Test
+    public void admitAgainAfterCompletion() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = dbExecutor.submit(() -> await(release, "first"));
+        CompletableFuture<String> second = dbExecutor.submit(() -> await(release, "second"));
+        release.countDown();
+        CompletableFuture.allOf(first, second).get();
+
+        //when
+        CompletableFuture<String> third = dbExecutor.submit(() -> "third");
+
+        //then
+        assertThat(third.get()).isEqualTo("third");
+    }
+
+    @Test
+    public void virtualThreadsRunAtMostThreadsAtOnce() throws Exception {
+        //given
+        DbExecutor virtual = new DbExecutor(10, 2, 4, true, new SimpleMeterRegistry());
+        try {
+            assumeTrue(virtual.isVirtualThreads(), "virtual threads need JDK 21+");
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            //when
+            List<CompletableFuture<String>> tasks = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                tasks.add(virtual.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        return await(release, "done");
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).get();
+
+            //then
+            assertThat(maxRunning.get()).isEqualTo(2);
+        } finally {
+            virtual.destroy();
+        }
+    }
+
+    private static String await(CountDownLatch latch, String value) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
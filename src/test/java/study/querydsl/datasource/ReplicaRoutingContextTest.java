@@ -0,0 +1,109 @@
+package study.querydsl.datasource;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 스프링 컨텍스트에서 JpaTransactionManager + LazyConnectionDataSourceProxy 를 거친
+ * 실제 @Transactional(readOnly = true) 가 복제 DB 로 가는지 확인한다.
+ * 복제 DB 는 primary 를 한 번 복사해 두고, 그 뒤에 primary 에 커밋한 회원은 복제 DB 에 없다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.replica.enabled=true",
+        "querydsl.replica.url=jdbc:h2:mem:context_replica;DB_CLOSE_DELAY=-1",
+        "querydsl.replica.username=sa",
+        "querydsl.replica.password=",
+        "querydsl.replica.driver-class-name=org.h2.Driver",
+        "querydsl.replica.health-check-interval-ms=0",
+        "querydsl.replica.read-your-writes-ms=0"})
+class ReplicaRoutingContextTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ReplicaDataSources dataSources;
+
+    @Autowired
+    ReplicaRoutingPolicy policy;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() throws Exception {
+        H2ReplicationSimulator simulator = new H2ReplicationSimulator(
+                dataSources.getPrimary(), dataSources.getReplica(), policy, 60_000);
+        simulator.replicate();
+        simulator.close();
+
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.persist(new Member("replicaMember1", 10)));
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        tx.executeWithoutResult(status -> queryFactory.delete(member)
+                .where(member.username.eq("replicaMember1"))
+                .execute());
+        try (Connection connection = dataSources.getReplica().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void readOnlyRepositoryMethodGoesToReplica() {
+        //when
+        // SimpleJpaRepository 는 클래스에 @Transactional(readOnly = true)
+        long replicaCount = memberRepository.count();
+        long primaryCount = tx.execute(status -> memberRepository.count());
+
+        //then
+        assertThat(replicaCount).as("복사한 뒤 커밋한 회원은 복제 DB 에 없다").isEqualTo(primaryCount - 1);
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        //given
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        //when
+        Long onReplica = readOnlyTx.execute(status -> countReplicaMember());
+        Long onPrimary = tx.execute(status -> countReplicaMember());
+
+        //then
+        assertThat(onReplica).isEqualTo(0);
+        assertThat(onPrimary).isEqualTo(1);
+    }
+
+    private long countReplicaMember() {
+        return queryFactory.selectFrom(member)
+                .where(member.username.eq("replicaMember1"))
+                .fetchCount();
+    }
+}
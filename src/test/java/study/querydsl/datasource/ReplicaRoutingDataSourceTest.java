@@ -0,0 +1,170 @@
+package study.querydsl.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.DataChangeEvent;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스프링 컨텍스트 없이 H2 메모리 DB 두 개로 라우팅 / fallback / 복제 지연을 확인한다.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    DriverManagerDataSource primary;
+    DriverManagerDataSource replica;
+    ReplicaRoutingPolicy policy;
+    DataSource dataSource;
+
+    @BeforeEach
+    public void before() throws Exception {
+        primary = new DriverManagerDataSource("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1", "sa", "");
+        replica = new DriverManagerDataSource("jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1", "sa", "");
+        execute(primary, "create table member (member_id bigint primary key, username varchar(255))");
+        execute(replica, "create table member (member_id bigint primary key, username varchar(255))");
+
+        policy = new ReplicaRoutingPolicy(replica, 0, 0);
+        dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, policy));
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        policy.close();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        execute(primary, "drop all objects");
+        execute(replica, "drop all objects");
+    }
+
+    @Test
+    public void readOnlyGoesToReplica() throws Exception {
+        //given
+        execute(primary, "insert into member values (1, 'member1')");
+
+        //when
+        long writeSide = count(dataSource);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        long readSide = count(dataSource);
+
+        //then
+        assertThat(writeSide).isEqualTo(1);
+        assertThat(readSide).as("복제 전").isEqualTo(0);
+    }
+
+    @Test
+    public void replicationLag() throws Exception {
+        //given
+        execute(primary, "insert into member values (1, 'member1')");
+        H2ReplicationSimulator simulator = new H2ReplicationSimulator(primary, replica, policy, 60_000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        long beforeReplication = count(dataSource);
+        simulator.replicate();
+        long afterReplication = count(dataSource);
+        simulator.close();
+
+        //then
+        assertThat(beforeReplication).isEqualTo(0);
+        assertThat(afterReplication).isEqualTo(1);
+    }
+
+    @Test
+    public void replicationWaitsForOpenReplicaConnections() throws Exception {
+        //given
+        execute(primary, "insert into member values (1, 'member1')");
+        H2ReplicationSimulator simulator = new H2ReplicationSimulator(primary, replica, policy, 60_000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection inFlight = dataSource.getConnection();
+        long beforeReplication = count(inFlight);
+
+        //when
+        CompletableFuture<Void> replication = CompletableFuture.runAsync(() -> {
+            try {
+                simulator.replicate();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        boolean replicatedWhileOpen = replication.isDone();
+        long newReadWhilePaused = count(dataSource);
+        long openConnectionWhilePaused = count(inFlight);
+        inFlight.close();
+        replication.get(5, TimeUnit.SECONDS);
+        simulator.close();
+
+        //then
+        assertThat(beforeReplication).isEqualTo(0);
+        assertThat(replicatedWhileOpen).as("열린 복제 DB 커넥션이 닫힐 때까지 기다린다").isFalse();
+        assertThat(newReadWhilePaused).as("기다리는 동안 새 읽기는 primary").isEqualTo(1);
+        assertThat(openConnectionWhilePaused).as("열린 커넥션의 테이블은 지워지지 않는다").isEqualTo(0);
+        assertThat(count(dataSource)).isEqualTo(1);
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaIsDown() throws Exception {
+        //given
+        execute(primary, "insert into member values (1, 'member1')");
+        DriverManagerDataSource brokenReplica = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/none", "sa", "");
+        ReplicaRoutingPolicy brokenPolicy = new ReplicaRoutingPolicy(brokenReplica, 0, 0);
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, brokenReplica, brokenPolicy));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        brokenPolicy.checkHealth();
+
+        //then
+        assertThat(brokenPolicy.isReplicaHealthy()).isFalse();
+        assertThat(count(routing)).isEqualTo(1);
+        brokenPolicy.close();
+    }
+
+    @Test
+    public void readYourWrites() throws Exception {
+        //given
+        ReplicaRoutingPolicy stickyPolicy = new ReplicaRoutingPolicy(replica, 60_000, 0);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        boolean beforeWrite = stickyPolicy.useReplica();
+
+        //when
+        stickyPolicy.onDataChange(new DataChangeEvent(Member.class, true));
+
+        //then
+        assertThat(beforeWrite).isTrue();
+        assertThat(stickyPolicy.useReplica()).as("쓰기 직후에는 primary").isFalse();
+        stickyPolicy.close();
+    }
+
+    private long count(DataSource target) throws Exception {
+        try (Connection connection = target.getConnection()) {
+            return count(connection);
+        }
+    }
+
+    private long count(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select count(*) from member")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void execute(DataSource target, String sql) throws Exception {
+        try (Connection connection = target.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
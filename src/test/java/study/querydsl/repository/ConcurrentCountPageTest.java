@@ -0,0 +1,255 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountCache;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * count 를 별도 커넥션에서 동시에 실행하는 페이징 (PageMode.CONCURRENT_COUNT, applyPaginationConcurrently)
+ * - 별도 커넥션에서 실행됐는지는 커밋 전 네이티브 update 로 확인한다.
+ *   (네이티브 SQL 은 변경 알림도 쓰기 지연도 없으므로 병렬로 실행되고, 별도 커넥션의 count 에는 보이지 않는다)
+ * - 병렬 쿼리 스레드 1 개, 큐 1 개로 줄여서 스레드가 모두 바쁜 경우를 만든다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.page-mode.search-page-complex=concurrent-count",
+        "querydsl.parallel-query.threads=1",
+        "querydsl.parallel-query.queue-capacity=1"})
+class ConcurrentCountPageTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    ParallelQueryExecutor parallelQueryExecutor;
+
+    @Autowired
+    CountCache countCache;
+
+    TransactionTemplate tx;
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamConcurrent = new Team("teamConcurrent");
+            em.persist(teamConcurrent);
+            em.persist(new Member("concurrentMember1", 10, teamConcurrent));
+            em.persist(new Member("concurrentMember2", 20, teamConcurrent));
+            em.persist(new Member("concurrentMember3", 30, teamConcurrent));
+            em.persist(new Member("concurrentMember4", 40, teamConcurrent));
+            em.persist(new Member("concurrentMember5", 50, teamConcurrent));
+        });
+        countCache.invalidateAll();
+
+        // 커밋된 데이터로는 2 건, 커밋 전 변경까지 보면 3 건
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamConcurrent");
+        condition.setAgeGoe(40);
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("concurrentMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.eq("teamConcurrent"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void searchPageComplexCountsOnAnotherConnection() {
+        tx.executeWithoutResult(status -> {
+            //given
+            nativeUpdateAge("concurrentMember1", 99);
+
+            //when
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+            //then
+            assertThat(result.getContent()).hasSize(2);
+            assertThat(result.getTotalElements()).as("별도 커넥션의 count 는 커밋 전 변경을 보지 못한다").isEqualTo(2);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    public void searchPageComplexWithFlushedChanges() {
+        tx.executeWithoutResult(status -> {
+            //given
+            em.persist(new Member("concurrentMember6", 60, teamConcurrent()));
+            em.flush();
+
+            //when
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+            //then
+            assertThat(result.getTotalElements()).isEqualTo(3);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    public void searchPageComplexWithUnflushedChanges() {
+        tx.executeWithoutResult(status -> {
+            //given
+            findMember("concurrentMember1").setAge(99);
+
+            //when
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+            //then
+            assertThat(result.getTotalElements()).isEqualTo(3);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    public void searchPageComplexWhenParallelQueriesBusy() {
+        CountDownLatch release = saturateParallelQueries();
+        try {
+            tx.executeWithoutResult(status -> {
+                //given
+                nativeUpdateAge("concurrentMember1", 99);
+
+                //when
+                Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+                //then
+                assertThat(result.getTotalElements()).as("현재 EntityManager 로 count").isEqualTo(3);
+                status.setRollbackOnly();
+            });
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void applyPaginationConcurrentlyCountsOnAnotherConnection() {
+        tx.executeWithoutResult(status -> {
+            //given
+            nativeUpdateAge("concurrentMember1", 99);
+
+            //when
+            Page<Member> result = memberTestRepository.applyPagenationConcurrently(condition, PageRequest.of(0, 2));
+
+            //then
+            assertThat(result.getContent()).hasSize(2);
+            assertThat(result.getTotalElements()).isEqualTo(2);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    public void applyPaginationConcurrentlyWithUnflushedChanges() {
+        tx.executeWithoutResult(status -> {
+            //given
+            findMember("concurrentMember1").setAge(99);
+
+            //when
+            Page<Member> result = memberTestRepository.applyPagenationConcurrently(condition, PageRequest.of(0, 2));
+
+            //then
+            assertThat(result.getTotalElements()).isEqualTo(3);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    public void applyPaginationConcurrentlyWhenParallelQueriesBusy() {
+        CountDownLatch release = saturateParallelQueries();
+        try {
+            tx.executeWithoutResult(status -> {
+                //given
+                nativeUpdateAge("concurrentMember1", 99);
+
+                //when
+                Page<Member> result = memberTestRepository.applyPagenationConcurrently(condition, PageRequest.of(0, 2));
+
+                //then
+                assertThat(result.getTotalElements()).isEqualTo(3);
+                status.setRollbackOnly();
+            });
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void nativeUpdateAge(String username, int age) {
+        em.createNativeQuery("update member set age = ? where username = ?")
+                .setParameter(1, age)
+                .setParameter(2, username)
+                .executeUpdate();
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member)
+                .where(member.username.eq(username))
+                .fetchOne();
+    }
+
+    private Team teamConcurrent() {
+        return queryFactory.selectFrom(team)
+                .where(team.name.eq("teamConcurrent"))
+                .fetchOne();
+    }
+
+    /**
+     * 스레드와 큐를 latch 를 기다리는 작업으로 채운다.
+     */
+    private CountDownLatch saturateParallelQueries() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 10; i++) {
+                parallelQueryExecutor.submit(entityManager -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            return release;
+        }
+        release.countDown();
+        throw new IllegalStateException("parallel query executor is not saturated");
+    }
+}
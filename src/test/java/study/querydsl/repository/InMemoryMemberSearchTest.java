@@ -0,0 +1,234 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 후 반영을 확인해야 하므로 @Transactional 을 쓰지 않고 직접 커밋/정리한다.
+ * 스냅샷 반영은 refresher 스레드에서 하므로 스냅샷으로 조회되는지 볼 때는 awaitRefreshed 로 기다린다.
+ */
+@SpringBootTest(properties = "querydsl.in-memory.enabled=true")
+class InMemoryMemberSearchTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    InMemoryMemberSearch inMemoryMemberSearch;
+
+    TransactionTemplate tx;
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamMemory = new Team("teamMemory");
+            em.persist(teamMemory);
+            em.persist(new Member("memoryMember1", 10, teamMemory));
+            em.persist(new Member("memoryMember2", 20, teamMemory));
+            em.persist(new Member("memoryMember3", 30, null));
+        });
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamMemory");
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("memoryMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.startsWith("teamMemory"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void searchServedFromSnapshot() throws Exception {
+        //given
+        awaitRefreshed();
+        double hitsBefore = hits();
+
+        //when
+        memberRepository.search(condition);
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(25);
+
+        //then
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("memoryMember2");
+        assertThat(hits() - hitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    public void committedChangesApplied() throws Exception {
+        //given
+        awaitRefreshed();
+
+        //when
+        tx.executeWithoutResult(status -> {
+            Member member1 = queryFactory.selectFrom(member)
+                    .where(member.username.eq("memoryMember1"))
+                    .fetchOne();
+            member1.setAge(11);
+            Team renamed = queryFactory.selectFrom(team)
+                    .where(team.name.eq("teamMemory"))
+                    .fetchOne();
+            renamed.setName("teamMemoryRenamed");
+        });
+
+        //then
+        // 반영 전에는 DB 로, 반영 후에는 patch 한 스냅샷으로 조회한다.
+        condition.setTeamName("teamMemoryRenamed");
+        assertThat(memberRepository.search(condition)).extracting("age").containsExactly(11, 20);
+        awaitRefreshed();
+        double hitsBefore = hits();
+        assertThat(memberRepository.search(condition)).extracting("age").containsExactly(11, 20);
+        assertThat(hits() - hitsBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void committedDeleteApplied() throws Exception {
+        //given
+        awaitRefreshed();
+
+        //when
+        tx.executeWithoutResult(status -> em.remove(queryFactory.selectFrom(member)
+                .where(member.username.eq("memoryMember1"))
+                .fetchOne()));
+
+        //then
+        awaitRefreshed();
+        double hitsBefore = hits();
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("memoryMember2");
+        MemberSearchCondition byName = new MemberSearchCondition();
+        byName.setUsername("memoryMember1");
+        assertThat(memberRepository.search(byName)).isEmpty();
+        assertThat(hits() - hitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    public void bulkExecuteReloadsSnapshot() throws Exception {
+        //given
+        awaitRefreshed();
+
+        //when
+        tx.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("memoryMember"))
+                .execute());
+
+        //then
+        assertThat(memberRepository.search(condition)).extracting("age").containsExactly(11, 21);
+        awaitRefreshed();
+        assertThat(memberRepository.search(condition)).extracting("age").containsExactly(11, 21);
+    }
+
+    @Test
+    public void rolledBackChangesIgnored() throws Exception {
+        //given
+        awaitRefreshed();
+
+        //when
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("memoryMember4", 40, em.find(Team.class, teamId())));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        double hitsBefore = hits();
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactly("memoryMember1", "memoryMember2");
+        assertThat(hits() - hitsBefore).as("롤백은 스냅샷을 옛 값으로 만들지 않는다").isEqualTo(1);
+    }
+
+    @Test
+    public void requiresNewCommitAppliedWhenOuterRollsBack() throws Exception {
+        //given
+        awaitRefreshed();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        //when
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("memoryMember4", 40, em.find(Team.class, teamId())));
+            em.flush();
+            requiresNew.executeWithoutResult(inner -> queryFactory.selectFrom(member)
+                    .where(member.username.eq("memoryMember1"))
+                    .fetchOne()
+                    .setAge(11));
+            status.setRollbackOnly();
+        });
+
+        //then
+        awaitRefreshed();
+        double hitsBefore = hits();
+        assertThat(memberRepository.search(condition)).as("안쪽 트랜잭션의 커밋은 바깥 롤백과 상관없이 반영")
+                .extracting("age").containsExactly(11, 20);
+        assertThat(hits() - hitsBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void uncommittedChangesReadFromDatabase() {
+        tx.executeWithoutResult(status -> {
+            //given
+            em.persist(new Member("memoryMember4", 40, em.find(Team.class, teamId())));
+            double hitsBefore = hits();
+
+            //when
+            MemberSearchCondition byName = new MemberSearchCondition();
+            byName.setUsername("memoryMember4");
+
+            //then
+            assertThat(memberRepository.search(byName)).extracting("age").containsExactly(40);
+            assertThat(hits()).isEqualTo(hitsBefore);
+        });
+    }
+
+    private Long teamId() {
+        return queryFactory.select(team.id)
+                .from(team)
+                .where(team.name.eq("teamMemory"))
+                .fetchOne();
+    }
+
+    private void awaitRefreshed() throws InterruptedException {
+        assertThat(inMemoryMemberSearch.awaitRefreshed(5000)).isTrue();
+    }
+
+    private double hits() {
+        return registry.counter("querydsl.search.in.memory", "result", "hit").count();
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAgeAvgDto;
+import study.querydsl.dto.MemberRankDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.groups.Tuple.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsRepositoryTest {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    MemberAnalyticsRepository memberAnalyticsRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+        entityManager.persist(new Member("member5", 40, teamB));
+        entityManager.persist(new Member("member6", 50, null));
+    }
+
+    @Test
+    public void topNPerTeam() throws Exception {
+        //when
+        List<MemberRankDto> result = memberAnalyticsRepository.topNPerTeam(1);
+
+        //then
+        // 같은 나이는 member_id 순서, 팀이 없는 회원은 제외
+        assertThat(result).extracting("username", "teamName", "rank")
+                .containsExactly(
+                        tuple("member2", "teamA", 1L),
+                        tuple("member4", "teamB", 1L));
+    }
+
+    @Test
+    public void rankWithinTeam() throws Exception {
+        //when
+        List<MemberRankDto> all = memberAnalyticsRepository.rankWithinTeam(null);
+        List<MemberRankDto> oldest = memberAnalyticsRepository.rankWithinTeam(1);
+
+        //then
+        assertThat(all).extracting("username", "rank")
+                .containsExactly(
+                        tuple("member2", 1L),
+                        tuple("member1", 2L),
+                        tuple("member4", 1L),
+                        tuple("member5", 1L),
+                        tuple("member3", 3L));
+        assertThat(oldest).extracting("username")
+                .containsExactly("member2", "member4", "member5");
+    }
+
+    @Test
+    public void runningAverageAge() throws Exception {
+        //when
+        List<MemberAgeAvgDto> result = memberAnalyticsRepository.runningAverageAge();
+
+        //then
+        assertThat(result).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4", "member5");
+        assertThat(result.subList(0, 4)).extracting("runningAvgAge")
+                .containsExactly(10.0, 15.0, 30.0, 35.0);
+        assertThat(result.get(4).getRunningAvgAge()).isCloseTo(110.0 / 3, within(1e-9));
+        assertThat(result.get(0).getTeamAvgAge()).isEqualTo(15.0);
+        assertThat(result.get(4).getTeamAvgAge()).isCloseTo(110.0 / 3, within(1e-9));
+    }
+
+    @Test
+    public void aboveTeamAverage() throws Exception {
+        //when
+        List<MemberTeamDto> result = memberAnalyticsRepository.aboveTeamAverage();
+
+        //then
+        assertThat(result).extracting("username")
+                .containsExactly("member2", "member4", "member5");
+    }
+}
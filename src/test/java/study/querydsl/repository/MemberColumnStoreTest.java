@@ -0,0 +1,157 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamAgeStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 후 반영을 확인해야 하므로 @Transactional 을 쓰지 않고 직접 커밋/정리한다.
+ */
+@SpringBootTest
+class MemberColumnStoreTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberColumnStore memberColumnStore;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("columnTeamA");
+            Team teamB = new Team("columnTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("columnMember1", 10, teamA));
+            em.persist(new Member("columnMember2", 20, teamA));
+            em.persist(new Member("columnMember3", 30, teamB));
+            em.persist(new Member("columnMember4", 40, teamB));
+            em.persist(new Member("columnMember5", 50, null));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("columnMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.startsWith("columnTeam"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void sameAsGroupByQuery() {
+        //given
+        List<Tuple> expected = queryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith("columnTeam"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+        //when
+        List<TeamAgeStatsDto> stats = columnTeams(memberColumnStore.statsByTeam(null));
+
+        //then
+        assertThat(stats).hasSize(expected.size());
+        for (int i = 0; i < stats.size(); i++) {
+            assertThat(stats.get(i).getTeamName()).isEqualTo(expected.get(i).get(team.name));
+            assertThat(stats.get(i).getCount()).isEqualTo(expected.get(i).get(member.count()));
+            assertThat(stats.get(i).getSum()).isEqualTo(expected.get(i).get(member.age.sum()).longValue());
+            assertThat(stats.get(i).getMin()).isEqualTo(expected.get(i).get(member.age.min()));
+            assertThat(stats.get(i).getMax()).isEqualTo(expected.get(i).get(member.age.max()));
+        }
+        assertThat(stats).extracting("avg").containsExactly(15.0, 35.0);
+    }
+
+    @Test
+    public void committedChangesApplied() {
+        //given
+        memberColumnStore.statsByTeam(null);
+
+        //when
+        tx.executeWithoutResult(status -> {
+            Member member1 = queryFactory.selectFrom(member)
+                    .where(member.username.eq("columnMember1"))
+                    .fetchOne();
+            Team teamB = queryFactory.selectFrom(team)
+                    .where(team.name.eq("columnTeamB"))
+                    .fetchOne();
+            em.remove(member1);
+            em.persist(new Member("columnMember6", 60, teamB));
+        });
+
+        //then
+        assertThat(columnTeams(memberColumnStore.statsByTeam(null)))
+                .extracting("teamName", "count", "sum")
+                .containsExactly(
+                        org.assertj.core.groups.Tuple.tuple("columnTeamA", 1L, 20L),
+                        org.assertj.core.groups.Tuple.tuple("columnTeamB", 3L, 130L));
+    }
+
+    @Test
+    public void bulkExecuteReloads() {
+        //given
+        memberColumnStore.statsByTeam(null);
+
+        //when
+        tx.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("columnMember"))
+                .execute());
+
+        //then
+        assertThat(columnTeams(memberColumnStore.statsByTeam(null)))
+                .extracting("min")
+                .containsExactly(11, 31);
+    }
+
+    @Test
+    public void filteredByUsername() {
+        //when
+        List<TeamAgeStatsDto> stats = memberColumnStore.statsByTeam("columnMember3");
+
+        //then
+        assertThat(stats).extracting("teamName", "count")
+                .containsExactly(org.assertj.core.groups.Tuple.tuple("columnTeamB", 1L));
+        assertThat(memberColumnStore.statsByTeam("noSuchMember")).isEmpty();
+    }
+
+    private static List<TeamAgeStatsDto> columnTeams(List<TeamAgeStatsDto> stats) {
+        return stats.stream()
+                .filter(s -> s.getTeamName().startsWith("columnTeam"))
+                .collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.repository;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
@@ -8,14 +9,19 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MaxStatements;
+import study.querydsl.repository.support.StatementCountExtension;
+import study.querydsl.repository.support.StatementCounter;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(StatementCountExtension.class)
 class MemberJpaRepositoryTest {
 
     @Autowired
@@ -63,7 +69,8 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
-    public void searchTest() throws Exception {
+    @MaxStatements(1)
+    public void searchTest(StatementCounter.Scope statements) throws Exception {
         //given
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -80,6 +87,9 @@ class MemberJpaRepositoryTest {
         entityManager.persist(member3);
         entityManager.persist(member4);
 
+        entityManager.flush();
+        statements.reset();
+
         //when
         MemberSearchCondition condition = new MemberSearchCondition();
         condition.setAgeGoe(35);
@@ -94,4 +104,83 @@ class MemberJpaRepositoryTest {
                 .containsExactly("member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchStreamTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        memberJpaRepository.searchStream(condition, 1, result::add);
+
+        //then
+        assertThat(result)
+                .extracting("username")
+                .containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    public void searchMatchesSearchByBuilderForEveryShape() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamB));
+        entityManager.persist(new Member("member4", 40, teamB));
+
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((shape & 1) != 0 ? "member3" : null);
+            condition.setTeamName((shape & 2) != 0 ? "teamB" : null);
+            condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((shape & 8) != 0 ? 35 : null);
+
+            //when
+            List<MemberTeamDto> cached = memberJpaRepository.search(condition);
+            List<MemberTeamDto> built = memberJpaRepository.searchByBuilder(condition);
+
+            //then
+            assertThat(cached).containsExactlyInAnyOrderElementsOf(built);
+        }
+    }
+
+    @Test
+    @MaxStatements(2)
+    public void findAllByIdsTest(StatementCounter.Scope statements) throws Exception {
+        //given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Member member = new Member("member" + i, i % 100);
+            entityManager.persist(member);
+            ids.add(0, member.getId()); // 역순
+        }
+        ids.add(-1L); // 없는 id
+        ids.add(ids.get(0)); // 중복 id
+        entityManager.flush();
+        entityManager.clear();
+        statements.reset();
+
+        //when
+        // chunk-size 512 -> in (512) + in (89 -> 128 로 채움)
+        List<Member> result = memberJpaRepository.findAllByIds(ids);
+
+        //then
+        assertThat(result).hasSize(600);
+        assertThat(result).extracting("id").containsExactlyElementsOf(ids.subList(0, 600));
+    }
+}
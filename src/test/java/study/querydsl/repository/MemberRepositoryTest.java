@@ -1,24 +1,33 @@
 package study.querydsl.repository;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberKeysetCursor;
+import study.querydsl.dto.MemberKeysetPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.MaxStatements;
+import study.querydsl.repository.support.StatementCountExtension;
+import study.querydsl.repository.support.StatementCounter;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(StatementCountExtension.class)
 class MemberRepositoryTest {
 
     @Autowired
@@ -47,7 +56,8 @@ class MemberRepositoryTest {
     }
 
     @Test
-    public void searchTest() throws Exception {
+    @MaxStatements(1)
+    public void searchTest(StatementCounter.Scope statements) throws Exception {
         //given
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -64,6 +74,9 @@ class MemberRepositoryTest {
         entityManager.persist(member3);
         entityManager.persist(member4);
 
+        entityManager.flush();
+        statements.reset();
+
         //when
         MemberSearchCondition condition = new MemberSearchCondition();
         condition.setAgeGoe(35);
@@ -79,7 +92,8 @@ class MemberRepositoryTest {
     }
 
     @Test
-    public void searchPageSimpleTest() throws Exception {
+    @MaxStatements(2)
+    public void searchPageSimpleTest(StatementCounter.Scope statements) throws Exception {
         //given
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -96,6 +110,9 @@ class MemberRepositoryTest {
         entityManager.persist(member3);
         entityManager.persist(member4);
 
+        entityManager.flush();
+        statements.reset();
+
         //when
         MemberSearchCondition condition = new MemberSearchCondition();
 
@@ -109,6 +126,92 @@ class MemberRepositoryTest {
                 .containsExactly("member1", "member2", "member3");
     }
     
+    @Test
+    public void searchPageComplexCountCacheTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        entityManager.persist(new Member("member1", 10, teamA));
+        entityManager.persist(new Member("member2", 20, teamA));
+        entityManager.persist(new Member("member3", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        Page<MemberTeamDto> before = memberRepository.searchPageComplex(condition, pageRequest);
+
+        //when
+        entityManager.persist(new Member("member4", 40, teamA));
+        Page<MemberTeamDto> after = memberRepository.searchPageComplex(condition, pageRequest);
+
+        //then
+        assertThat(before.getTotalElements()).isEqualTo(3);
+        assertThat(after.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void searchByKeysetTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        entityManager.persist(teamA);
+        entityManager.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 20, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        entityManager.persist(member1);
+        entityManager.persist(member2);
+        entityManager.persist(member3);
+        entityManager.persist(member4);
+
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        MemberKeysetPage first = memberRepository.searchByKeyset(condition, null, 2);
+        MemberKeysetCursor cursor = MemberKeysetCursor.decode(first.getContinuationToken());
+        MemberKeysetPage second = memberRepository.searchByKeyset(condition, cursor, 2);
+
+        //then
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member1", "member2");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getContinuationToken()).isNull();
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void searchByKeysetSizeTest() throws Exception {
+        assertThatThrownBy(() -> memberRepository.searchByKeyset(new MemberSearchCondition(), null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @MaxStatements(2)
+    public void memberTeamNoNPlusOneTest(StatementCounter.Scope statements) throws Exception {
+        //given
+        for (int i = 0; i < 10; i++) {
+            Team team = new Team("team" + i);
+            entityManager.persist(team);
+            entityManager.persist(new Member("member" + i, i, team));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statements.reset();
+
+        //when
+        List<Member> members = memberRepository.findAll();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+
+        //then
+        assertThat(members).hasSize(10);
+    }
+
     @Test
     public void querydslPredicateExecutorTest() throws Exception {
         //given
@@ -138,5 +241,27 @@ class MemberRepositoryTest {
         
         //then
     }
-    
-}
\ No newline at end of file
+
+    @Test
+    public void findAllByIdsTest() throws Exception {
+        //given
+        Team teamA = new Team("teamA");
+        entityManager.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, null);
+        Member member3 = new Member("member3", 30, teamA);
+        entityManager.persist(member1);
+        entityManager.persist(member2);
+        entityManager.persist(member3);
+
+        //when
+        List<MemberTeamDto> result = memberRepository.findAllByIds(
+                Arrays.asList(member3.getId(), member1.getId(), -1L, member2.getId()));
+
+        //then
+        assertThat(result).extracting("username")
+                .containsExactly("member3", "member1", "member2");
+        assertThat(result).extracting("teamName")
+                .containsExactly("teamA", "teamA", null);
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커밋 후 무효화를 확인해야 하므로 @Transactional 을 쓰지 않고 직접 커밋/정리한다.
+ */
+@SpringBootTest
+class MemberSearchResultCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchResultCache searchResultCache;
+
+    TransactionTemplate tx;
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamCache = new Team("teamCache");
+            em.persist(teamCache);
+            em.persist(new Member("cacheMember1", 10, teamCache));
+            em.persist(new Member("cacheMember2", 20, teamCache));
+        });
+        searchResultCache.invalidateAll();
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamCache");
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("cacheMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.eq("teamCache"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void searchResultCached() {
+        //when
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        List<MemberTeamDto> second = memberJpaRepository.search(condition);
+
+        //then
+        assertThat(first).extracting("username").containsExactlyInAnyOrder("cacheMember1", "cacheMember2");
+        assertThat(second).isEqualTo(first);
+        assertThat(searchResultCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void cachedResultNotSharedBetweenCallers() {
+        //given
+        List<MemberTeamDto> first = memberJpaRepository.search(condition);
+        List<MemberTeamDto> second = memberJpaRepository.search(condition);
+
+        //when
+        first.get(0).setUsername("changedByCaller");
+        second.get(0).setUsername("changedByCaller");
+
+        //then
+        assertThat(memberJpaRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("cacheMember1", "cacheMember2");
+    }
+
+    @Test
+    public void invalidatedAfterCommittedWrite() {
+        //given
+        memberJpaRepository.search(condition);
+
+        //when
+        tx.executeWithoutResult(status -> {
+            Member member1 = queryFactory.selectFrom(member)
+                    .where(member.username.eq("cacheMember1"))
+                    .fetchOne();
+            member1.setAge(11);
+        });
+
+        //then
+        assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(11, 20);
+    }
+
+    @Test
+    public void invalidatedAfterBulkExecute() {
+        //given
+        memberJpaRepository.search(condition);
+
+        //when
+        tx.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("cacheMember"))
+                .execute());
+
+        //then
+        assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(11, 21);
+    }
+
+    @Test
+    public void notCachedWithUncommittedChanges() {
+        tx.executeWithoutResult(status -> {
+            //given
+            em.persist(new Member("cacheMember3", 30, null));
+
+            //when
+            memberJpaRepository.search(condition);
+
+            //then
+            assertThat(searchResultCache.size()).isEqualTo(0);
+        });
+    }
+}
@@ -0,0 +1,151 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkProgressListener;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크마다 REQUIRES_NEW 로 커밋하므로 @Transactional 을 쓰지 않고 직접 커밋/정리한다.
+ * 다른 테스트 데이터와 겹치지 않도록 나이 1001 ~ 1007 인 회원 7 명을 3 건씩 나눈다. (3, 3, 1)
+ */
+@SpringBootTest
+class MemberTestRepositoryBulkTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    TransactionTemplate tx;
+    List<List<Long>> progress;
+    BulkProgressListener recorder;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (int i = 1; i <= 7; i++) {
+                em.persist(new Member("bulkMember" + i, 1000 + i));
+            }
+        });
+
+        progress = new ArrayList<>();
+        recorder = (chunkNumber, chunkRows, totalRows) ->
+                progress.add(Arrays.asList((long) chunkNumber, chunkRows, totalRows));
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> queryFactory.delete(member)
+                .where(member.username.startsWith("bulkMember"))
+                .execute());
+    }
+
+    @Test
+    public void bulkUpdateInChunks() {
+        //when
+        long updated = memberTestRepository.bulkAddAge(1001, 10, 3, recorder);
+
+        //then
+        assertThat(updated).isEqualTo(7);
+        assertThat(progress).containsExactly(
+                Arrays.asList(1L, 3L, 3L),
+                Arrays.asList(2L, 3L, 6L),
+                Arrays.asList(3L, 1L, 7L));
+        assertThat(ages()).containsExactly(1011, 1012, 1013, 1014, 1015, 1016, 1017);
+    }
+
+    @Test
+    public void bulkUpdateInExactChunks() {
+        //when
+        long updated = memberTestRepository.bulkAddAge(1002, 1, 3, recorder);
+
+        //then
+        assertThat(updated).isEqualTo(6);
+        assertThat(progress).containsExactly(
+                Arrays.asList(1L, 3L, 3L),
+                Arrays.asList(2L, 3L, 6L));
+        assertThat(ages()).containsExactly(1001, 1003, 1004, 1005, 1006, 1007, 1008);
+    }
+
+    @Test
+    public void bulkDeleteInChunks() {
+        //given
+        // 삭제 조건(나이 이하)이 다른 데이터에 닿지 않도록 음수 나이로 바꾼다. (-1001 ~ -1007)
+        tx.executeWithoutResult(status -> {
+            queryFactory.update(member)
+                    .set(member.age, member.age.negate())
+                    .where(member.username.startsWith("bulkMember"))
+                    .execute();
+            em.persist(new Member("bulkMember8", -1000));
+        });
+
+        //when
+        long deleted = memberTestRepository.bulkDeleteByAgeLoe(-1001, 3, recorder);
+
+        //then
+        assertThat(deleted).isEqualTo(7);
+        assertThat(progress).containsExactly(
+                Arrays.asList(1L, 3L, 3L),
+                Arrays.asList(2L, 3L, 6L),
+                Arrays.asList(3L, 1L, 7L));
+        assertThat(ages()).containsExactly(-1000);
+    }
+
+    @Test
+    public void noMatchingRows() {
+        //when
+        long updated = memberTestRepository.bulkAddAge(5000, 1, 3, recorder);
+
+        //then
+        assertThat(updated).isEqualTo(0);
+        assertThat(progress).isEmpty();
+    }
+
+    @Test
+    public void rejectedWithPendingChanges() {
+        tx.executeWithoutResult(status -> {
+            //given
+            em.persist(new Member("bulkMember8", 1008));
+            em.flush();
+
+            //when, then
+            assertThatThrownBy(() -> memberTestRepository.bulkAddAge(1001, 10, 3, recorder))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(progress).isEmpty();
+            status.setRollbackOnly();
+        });
+        assertThat(ages()).containsExactly(1001, 1002, 1003, 1004, 1005, 1006, 1007);
+    }
+
+    private List<Integer> ages() {
+        return queryFactory.select(member.age)
+                .from(member)
+                .where(member.username.startsWith("bulkMember"))
+                .orderBy(member.age.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void applyPaginationEntityGraph() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        Page<Member> result = memberTestRepository.applyPagenation(condition, PageRequest.of(0, 3));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).hasSize(3);
+        for (Member member : result.getContent()) {
+            assertThat(emf.getPersistenceUnitUtil().isLoaded(member.getTeam())).as("entity graph 적용").isTrue();
+        }
+    }
+
+    @Test
+    public void searchPageByApplayPageFetchJoin() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        //when
+        Page<Member> result = memberTestRepository.searchPageByApplayPage(condition, PageRequest.of(0, 1));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(emf.getPersistenceUnitUtil().isLoaded(result.getContent().get(0).getTeam())).isTrue();
+    }
+
+    @Test
+    public void searchPageReadOnly() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        //when
+        Page<MemberTeamDto> result = memberTestRepository.searchPageReadOnly(condition, PageRequest.of(0, 2, Sort.by("age")));
+
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+    }
+
+    @Test
+    public void searchPageReadOnlyEntities() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        Page<Member> result = memberTestRepository.searchPageReadOnlyEntities(condition, PageRequest.of(0, 2, Sort.by("age")));
+
+        //then
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2");
+        for (Member member : result.getContent()) {
+            assertThat(session.isReadOnly(member)).as("org.hibernate.readOnly 힌트").isTrue();
+        }
+    }
+
+    @Test
+    public void searchPageReadOnlyDoesNotFlushReadOnlyEntities() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Member member1 = memberTestRepository.searchPageReadOnlyEntities(condition, PageRequest.of(0, 1, Sort.by("age")))
+                .getContent().get(0);
+
+        //when
+        member1.setAge(11);
+        em.flush();
+        em.clear();
+
+        //then
+        assertThat(em.find(Member.class, member1.getId()).getAge()).as("읽기 전용 엔티티는 dirty checking 하지 않는다").isEqualTo(10);
+    }
+
+    @Test
+    public void teamMembersBatchFetch() {
+        //given
+        List<Team> teams = em.createQuery("select t from Team t", Team.class).getResultList();
+        long before = statistics().getPrepareStatementCount();
+
+        //when
+        int memberCount = 0;
+        for (Team team : teams) {
+            memberCount += team.getMembers().size();
+        }
+
+        //then
+        assertThat(memberCount).isEqualTo(4);
+        assertThat(statistics().getPrepareStatementCount() - before).as("팀 수와 관계없이 한 번").isEqualTo(1);
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * querydsl.multi-get.parallel=true : findAllByIds 의 chunk 들을 별도 커넥션에서 동시에 조회
+ * chunk-size 2, 커넥션 풀 4 (커넥션 허가 2) 로 줄여서 허가가 모자라는 경우와 커넥션 풀이 바쁜 경우를 만든다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.multi-get.parallel=true",
+        "querydsl.multi-get.chunk-size=2",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "querydsl.parallel-query.await-timeout-ms=300"})
+class MultiGetParallelTest {
+
+    static final int CALLERS = 4;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    TransactionTemplate tx;
+    List<Long> ids;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        ids = tx.execute(status -> {
+            Team teamMultiGet = new Team("teamMultiGet");
+            em.persist(teamMultiGet);
+            List<Long> persisted = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) {
+                Member m = new Member("multiGetMember" + i, i * 10, teamMultiGet);
+                em.persist(m);
+                persisted.add(m.getId());
+            }
+            return persisted;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("multiGetMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.eq("teamMultiGet"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void chunksFetchedConcurrentlyInInputOrder() {
+        //when
+        // chunk 3 개 (2, 2, 1) 중 허가 2 개 만큼 별도 커넥션, 나머지는 현재 EntityManager
+        List<MemberTeamDto> result = memberRepository.findAllByIds(
+                Arrays.asList(ids.get(4), ids.get(0), ids.get(3), -1L, ids.get(1), ids.get(0), ids.get(2)));
+
+        //then
+        assertThat(result).extracting("username").containsExactly(
+                "multiGetMember5", "multiGetMember1", "multiGetMember4", "multiGetMember2", "multiGetMember3");
+        assertThat(result).extracting("teamName").containsOnly("teamMultiGet");
+    }
+
+    @Test
+    public void poolSizeCallersDoNotStarve() throws Exception {
+        //given
+        CyclicBarrier allHoldConnections = new CyclicBarrier(CALLERS);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        long start = System.nanoTime();
+
+        //when
+        List<Future<List<MemberTeamDto>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> tx.execute(status -> {
+                // 커넥션을 먼저 잡고 모두 잡을 때까지 기다린다.
+                em.createNativeQuery("select 1").getSingleResult();
+                await(allHoldConnections);
+                return memberRepository.findAllByIds(ids);
+            })));
+        }
+
+        //then
+        for (Future<List<MemberTeamDto>> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).extracting("username").containsExactly(
+                    "multiGetMember1", "multiGetMember2", "multiGetMember3", "multiGetMember4", "multiGetMember5");
+        }
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).as("connection-timeout 보다 빨리").isLessThan(10);
+        callers.shutdown();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountCache;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 커넥션 풀 크기만큼의 요청이 각자 커넥션을 쥔 채로 count 를 별도 커넥션에 맡겨도 멈추지 않는지 확인한다.
+ * 별도 커넥션 작업은 커넥션을 얻지 못하므로 await-timeout-ms 뒤에 요청 스레드의 커넥션으로 count 해야 한다.
+ * (그렇지 않으면 커넥션 풀 connection-timeout 30 초를 기다리고 실패한다)
+ */
+@SpringBootTest(properties = {
+        "querydsl.page-mode.search-page-complex=concurrent-count",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "querydsl.parallel-query.await-timeout-ms=300"})
+class ParallelQueryStarvationTest {
+
+    static final int CALLERS = 4;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    CountCache countCache;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamStarve = new Team("teamStarve");
+            em.persist(teamStarve);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("starveMember" + i, i * 10, teamStarve));
+            }
+        });
+        countCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("starveMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.eq("teamStarve"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void poolSizeCallersDoNotStarve() throws Exception {
+        //given
+        CyclicBarrier allHoldConnections = new CyclicBarrier(CALLERS);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        long start = System.nanoTime();
+
+        //when
+        List<Future<Page<MemberTeamDto>>> pages = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            // 호출마다 조건을 달리해서 count 캐시를 피한다.
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamStarve");
+            condition.setAgeGoe((i + 1) * 10);
+            pages.add(callers.submit(() -> tx.execute(status -> {
+                // 커넥션을 먼저 잡고 모두 잡을 때까지 기다린다.
+                em.createNativeQuery("select 1").getSingleResult();
+                await(allHoldConnections);
+                return memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+            })));
+        }
+
+        //then
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(pages.get(i).get(10, TimeUnit.SECONDS).getTotalElements()).isEqualTo(5 - i);
+        }
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).as("connection-timeout 보다 빨리").isLessThan(10);
+        callers.shutdown();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
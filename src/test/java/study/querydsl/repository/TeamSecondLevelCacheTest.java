@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 다른 세션에 보이므로 @Transactional 을 쓰지 않고 직접 커밋/정리한다.
+ */
+@SpringBootTest
+class TeamSecondLevelCacheTest {
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    Long memberId;
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        inTransaction(em -> {
+            Team team = new Team("cacheTeam");
+            Member member = new Member("cacheMember", 10, team);
+            em.persist(team);
+            em.persist(member);
+            teamId = team.getId();
+            memberId = member.getId();
+        });
+        emf.getCache().evictAll();
+        statistics().clear();
+    }
+
+    @AfterEach
+    public void after() {
+        inTransaction(em -> {
+            em.remove(em.find(Member.class, memberId));
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void fetchJoinNoTeamFromSecondLevelCache() {
+        //when
+        long first = statementCount(em -> em.find(Member.class, memberId).getTeam().getName());
+        long second = statementCount(em -> em.find(Member.class, memberId).getTeam().getName());
+
+        //then
+        assertThat(first).isEqualTo(2); // member + team
+        assertThat(second).isEqualTo(1); // member (team 은 2차 캐시)
+        assertThat(statistics().getCacheRegionStatistics(Team.class.getName()).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void findByNameQueryCache() {
+        //when
+        long before = statistics().getPrepareStatementCount();
+        Team first = teamRepository.findByName("cacheTeam").get();
+        long afterFirst = statistics().getPrepareStatementCount();
+        Team second = teamRepository.findByName("cacheTeam").get();
+        long afterSecond = statistics().getPrepareStatementCount();
+
+        //then
+        assertThat(afterFirst - before).isEqualTo(1);
+        assertThat(afterSecond - afterFirst).isEqualTo(0);
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(statistics().getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    private long statementCount(Consumer<EntityManager> work) {
+        long before = statistics().getPrepareStatementCount();
+        inTransaction(work);
+        return statistics().getPrepareStatementCount() - before;
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            work.accept(em);
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,162 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * 커밋 직전에 반영되므로 @Transactional 을 쓰지 않고 직접 커밋/정리한다.
+ */
+@SpringBootTest
+class TeamStatsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("statsMember1", 10, teamA));
+            em.persist(new Member("statsMember2", 20, teamA));
+            em.persist(new Member("statsMember3", 30, teamB));
+            em.persist(new Member("statsMember4", 40, teamB));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member)
+                    .where(member.username.startsWith("statsMember"))
+                    .execute();
+            queryFactory.delete(team)
+                    .where(team.name.startsWith("statsTeam"))
+                    .execute();
+        });
+    }
+
+    @Test
+    public void persisted() {
+        //then
+        assertSameAsGroupBy();
+        assertThat(teamStatsRepository.findAllWithTeamName())
+                .filteredOn(s -> s.getTeamName().startsWith("statsTeam"))
+                .extracting("teamName", "count", "sum", "min", "max")
+                .containsExactly(
+                        org.assertj.core.groups.Tuple.tuple("statsTeamA", 2L, 30L, 10, 20),
+                        org.assertj.core.groups.Tuple.tuple("statsTeamB", 2L, 70L, 30, 40));
+    }
+
+    @Test
+    public void updatedMovedRemoved() {
+        //when
+        tx.executeWithoutResult(status -> {
+            Member member1 = findMember("statsMember1");
+            Member member3 = findMember("statsMember3");
+            Member member4 = findMember("statsMember4");
+            member1.setAge(15); // teamA 최소 나이 변경
+            member3.setTeam(member1.getTeam()); // teamB -> teamA
+            em.remove(member4); // teamB 최대 나이 삭제
+            em.persist(new Member("statsMember5", 50, member1.getTeam()));
+        });
+
+        //then
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void bulkExecuteRecomputes() {
+        //when
+        tx.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.in("statsMember1", "statsMember3"))
+                .execute());
+
+        //then
+        assertSameAsGroupBy();
+        assertThat(queryFactory.select(teamStats.minAge)
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .where(team.name.startsWith("statsTeam"))
+                .orderBy(team.name.asc())
+                .fetch()).containsExactly(11, 31);
+    }
+
+    @Test
+    public void rollbackNotApplied() {
+        //when
+        tx.executeWithoutResult(status -> {
+            findMember("statsMember1").setAge(99);
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertSameAsGroupBy();
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member)
+                .where(member.username.eq(username))
+                .fetchOne();
+    }
+
+    private void assertSameAsGroupBy() {
+        List<Tuple> expected = queryFactory
+                .select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.startsWith("statsTeam"))
+                .groupBy(team.id)
+                .orderBy(team.id.asc())
+                .fetch();
+        List<Tuple> stats = queryFactory
+                .select(teamStats.teamId, teamStats.memberCount, teamStats.ageSum, teamStats.minAge, teamStats.maxAge)
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .where(team.name.startsWith("statsTeam"), teamStats.memberCount.gt(0))
+                .orderBy(teamStats.teamId.asc())
+                .fetch();
+
+        assertThat(stats).hasSize(expected.size());
+        for (int i = 0; i < stats.size(); i++) {
+            assertThat(stats.get(i).get(teamStats.teamId)).isEqualTo(expected.get(i).get(team.id));
+            assertThat(stats.get(i).get(teamStats.memberCount)).isEqualTo(expected.get(i).get(member.count()));
+            assertThat(stats.get(i).get(teamStats.ageSum)).isEqualTo(expected.get(i).get(member.age.sum()).longValue());
+            assertThat(stats.get(i).get(teamStats.minAge)).isEqualTo(expected.get(i).get(member.age.min()));
+            assertThat(stats.get(i).get(teamStats.maxAge)).isEqualTo(expected.get(i).get(member.age.max()));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Predicate;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.filter.QueryFilter;
+import study.querydsl.entity.QMember;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class ConditionPredicatesTest {
+
+    private final ConditionPredicates<MemberSearchCondition> conditions = ConditionPredicates.of(MemberSearchCondition.class);
+
+    @Test
+    public void sameAsHandWrittenPredicates() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(40);
+
+        //when
+        Predicate[] predicates = conditions.toPredicates(condition);
+
+        //then
+        assertThat(predicates).containsExactly(
+                member.username.eq("member1"),
+                team.name.eq("teamA"),
+                member.age.goe(10),
+                member.age.loe(40));
+        assertThat(conditions.presentMask(condition)).isEqualTo(0b1111);
+    }
+
+    @Test
+    public void blankAndNullValuesAreSkipped() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(" ");
+        condition.setAgeLoe(40);
+
+        //when
+        Predicate[] predicates = conditions.toPredicates(condition);
+
+        //then
+        assertThat(predicates).containsExactly(null, null, null, member.age.loe(40));
+        assertThat(conditions.presentMask(condition)).isEqualTo(0b1000);
+    }
+
+    @Test
+    public void parametersMatchShape() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        int shape = conditions.presentMask(condition);
+
+        //when
+        Predicate[] predicates = conditions.toParameterPredicates(shape);
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        conditions.bindParameters(condition, parameters::put);
+
+        //then
+        assertThat(predicates).extracting(p -> p == null ? null : p.toString())
+                .containsExactly(null, "team.name = :teamName", "member1.age >= :ageGoe", null);
+        assertThat(parameters).containsExactly(entry("teamName", "teamA"), entry("ageGoe", 10));
+        assertThat(conditions.describe(shape)).isEqualTo("teamName+ageGoe");
+        assertThat(conditions.describe(0)).isEqualTo("none");
+    }
+
+    @Test
+    public void compiledOncePerType() {
+        assertThat(ConditionPredicates.of(MemberSearchCondition.class)).isSameAs(conditions);
+    }
+
+    @Test
+    public void pathTypeMismatchFailsAtCompile() {
+        assertThatThrownBy(() -> ConditionPredicates.of(WrongType.class))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("age");
+    }
+
+    @Data
+    static class WrongType {
+        @QueryFilter(root = QMember.class, path = "age")
+        private String age;
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class CountCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    CountCache countCache;
+
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        countCache.invalidateAll();
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamCount");
+    }
+
+    @Test
+    public void keyedByQueryAndCondition() {
+        //given
+        CountCache.Key complex = CountCache.key("MemberRepository.searchPageComplex", condition.normalized());
+        CountCache.Key readOnly = CountCache.key("MemberTestRepository.searchPageReadOnly", condition.normalized());
+        countCache.get(complex, () -> 3);
+
+        //when
+        long count = countCache.get(readOnly, () -> 5);
+
+        //then
+        assertThat(count).as("같은 조건이라도 쿼리가 다르면 따로 센다").isEqualTo(5);
+        assertThat(countCache.get(complex, () -> 0)).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidateByCondition() {
+        //given
+        countCache.get(CountCache.key("MemberRepository.searchPageComplex", condition.normalized()), () -> 3);
+        countCache.get(CountCache.key("MemberTestRepository.applyPagenation2", condition.normalized()), () -> 3);
+        countCache.get(CountCache.key("MemberRepository.searchPageComplex", new MemberSearchCondition()), () -> 10);
+
+        //when
+        countCache.invalidate(searchCondition -> ((MemberSearchCondition) searchCondition).getTeamName() != null);
+
+        //then
+        assertThat(countCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void countWithPendingChangesNotCached() {
+        //given
+        em.persist(new Member("countMember1", 10));
+        em.flush();
+        CountCache.Key key = CountCache.key("MemberRepository.searchPageComplex", condition.normalized());
+
+        //when
+        countCache.get(key, () -> 1);
+
+        //then
+        assertThat(countCache.containsKey(key)).as("커밋 전 변경이 반영된 count").isFalse();
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueryOptimizerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, null));
+    }
+
+    @Test
+    public void unreferencedLeftJoinIsRemoved() throws Exception {
+        //given
+        JPAQuery<?> query = queryFactory
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20))
+                .orderBy(member.username.desc());
+
+        //when
+        JPAQuery<?> countQuery = CountQueryOptimizer.optimize(em, query);
+
+        //then
+        assertThat(countQuery.toString()).doesNotContain("team").doesNotContain("order by");
+        assertThat(countQuery.fetchCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void referencedLeftJoinIsKept() throws Exception {
+        //given
+        JPAQuery<?> query = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"));
+
+        //when
+        JPAQuery<?> countQuery = CountQueryOptimizer.optimize(em, query);
+
+        //then
+        assertThat(countQuery.toString()).contains("left join").doesNotContain("fetch");
+        assertThat(countQuery.fetchCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Test
+    public void indexedPredicatesAreCovered() {
+        //given
+        JPAQuery<?> query = new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20), team.name.eq("teamA"), member.username.contains("mem"))
+                .orderBy(member.age.asc());
+
+        //when
+        indexAdvisor.observe("IndexAdvisorTest.covered", query.getMetadata());
+        Map<String, List<IndexAdvisor.Usage>> report = indexAdvisor.report();
+
+        //then
+        assertThat(observed(report.get("uncovered"), "IndexAdvisorTest.covered")).isEmpty();
+        List<IndexAdvisor.Usage> covered = observed(report.get("covered"), "IndexAdvisorTest.covered");
+        assertThat(covered).extracting("table").containsExactlyInAnyOrder("member", "team");
+        // contains 는 인덱스를 탈 수 없는 조건이라 모으지 않는다.
+        assertThat(covered).filteredOn(u -> u.getTable().equals("member"))
+                .flatExtracting(IndexAdvisor.Usage::getPredicateColumns)
+                .containsExactlyInAnyOrder("age", "team_id");
+    }
+
+    @Test
+    public void unindexedPredicateColumnIsUncovered() {
+        //given
+        // team_id 는 PK 인덱스가 있지만 member_count 는 인덱스가 없다.
+        JPAQuery<?> query = new JPAQuery<>()
+                .select(teamStats)
+                .from(teamStats)
+                .where(teamStats.teamId.eq(1L), teamStats.memberCount.goe(10L));
+
+        //when
+        indexAdvisor.observe("IndexAdvisorTest.uncovered", query.getMetadata());
+        Map<String, List<IndexAdvisor.Usage>> report = indexAdvisor.report();
+
+        //then
+        assertThat(observed(report.get("covered"), "IndexAdvisorTest.uncovered")).isEmpty();
+        List<IndexAdvisor.Usage> uncovered = observed(report.get("uncovered"), "IndexAdvisorTest.uncovered");
+        assertThat(uncovered).extracting("table").containsExactly("team_stats");
+        assertThat(uncovered.get(0).getPredicateColumns()).containsExactlyInAnyOrder("team_id", "member_count");
+        assertThat(uncovered.get(0).getUncoveredColumns()).containsExactly("member_count");
+    }
+
+    private static List<IndexAdvisor.Usage> observed(List<IndexAdvisor.Usage> usages, String callSite) {
+        return usages.stream()
+                .filter(u -> u.getCallers().contains(callSite))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.repository.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 본문에서 실행할 수 있는 JDBC 문장 수 (StatementCountExtension)
+ * given 데이터는 flush 후 StatementCounter.Scope#reset 으로 빼고 센다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxStatements {
+
+    int value();
+}
@@ -0,0 +1,45 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiGetExecutorTest {
+
+    @Test
+    public void paddedToPowerOfTwo() {
+        assertThat(MultiGetExecutor.paddedSize(1)).isEqualTo(1);
+        assertThat(MultiGetExecutor.paddedSize(2)).isEqualTo(2);
+        assertThat(MultiGetExecutor.paddedSize(3)).isEqualTo(4);
+        assertThat(MultiGetExecutor.paddedSize(5)).isEqualTo(8);
+        assertThat(MultiGetExecutor.paddedSize(8)).isEqualTo(8);
+        assertThat(MultiGetExecutor.paddedSize(9)).isEqualTo(16);
+    }
+
+    @Test
+    public void chunksPaddedWithLastId() {
+        //given
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 11; id++) {
+            ids.add(id);
+        }
+
+        //when
+        List<List<Long>> chunks = MultiGetExecutor.chunks(ids, 8);
+
+        //then
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+        assertThat(chunks.get(1)).containsExactly(9L, 10L, 11L, 11L);
+    }
+
+    @Test
+    public void emptyIds() {
+        assertThat(MultiGetExecutor.chunks(new ArrayList<Long>(), 8)).isEmpty();
+        assertThat(MultiGetExecutor.chunks(Arrays.asList(7L), 8)).containsExactly(Arrays.asList(7L));
+    }
+}
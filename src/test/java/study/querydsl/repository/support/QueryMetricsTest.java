@@ -0,0 +1,120 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, null));
+    }
+
+    @Test
+    public void fetchRecordedWithRepositoryMethod() {
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        long countBefore = latency() == null ? 0 : latency().count();
+        double rowsBefore = rows() == null ? 0 : rows().totalAmount();
+
+        //when
+        memberJpaRepository.searchByBuilder(condition);
+
+        //then
+        assertThat(latency().count() - countBefore).isEqualTo(1);
+        assertThat(rows().totalAmount() - rowsBefore).isEqualTo(2);
+    }
+
+    @Test
+    public void sameShapeDifferentValues() {
+        //when
+        int goe10 = QueryShape.hash(queryFactory.selectFrom(member).where(member.age.goe(10)).getMetadata());
+        int goe30 = QueryShape.hash(queryFactory.selectFrom(member).where(member.age.goe(30)).getMetadata());
+        int loe10 = QueryShape.hash(queryFactory.selectFrom(member).where(member.age.loe(10)).getMetadata());
+
+        //then
+        assertThat(goe10).isEqualTo(goe30);
+        assertThat(goe10).isNotEqualTo(loe10);
+    }
+
+    @Test
+    public void shapeCacheSharesShapeTagWithBuilder() {
+        //given
+        // 다른 테스트가 남긴 검색 결과 캐시를 피하려고 쓰지 않는 값
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(21);
+        String shape = Integer.toHexString(QueryShape.hash(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(30))
+                .getMetadata()));
+
+        //when
+        memberJpaRepository.searchByBuilder(condition);
+        memberJpaRepository.search(condition);
+
+        //then
+        assertThat(registry.find("querydsl.query")
+                .tags("method", "MemberJpaRepository.searchByBuilder", "operation", "fetch", "shape", shape)
+                .timer()).isNotNull();
+        assertThat(registry.find("querydsl.query")
+                .tags("method", "MemberJpaRepository.search", "operation", "fetch", "shape", shape)
+                .timer()).isNotNull();
+    }
+
+    private Timer latency() {
+        return registry.find("querydsl.query")
+                .tags("method", "MemberJpaRepository.searchByBuilder", "operation", "fetch")
+                .timer();
+    }
+
+    private DistributionSummary rows() {
+        return registry.find("querydsl.query.rows")
+                .tags("method", "MemberJpaRepository.searchByBuilder", "operation", "fetch")
+                .summary();
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트 본문에서 실행한 JDBC 문장 수를 세고 @MaxStatements 를 넘으면 실패시킨다. (N+1 회귀 방지)
+ * 테스트 메서드 파라미터로 StatementCounter.Scope 를 받아서 직접 reset / count 할 수 있다.
+ */
+public class StatementCountExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementCountExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        scope(context);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementCounter.Scope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), StatementCounter.Scope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+
+        Optional<MaxStatements> max = AnnotationSupport.findAnnotation(context.getElement(), MaxStatements.class);
+        if (max.isPresent() && !context.getExecutionException().isPresent()) {
+            assertThat(scope.count())
+                    .as("JDBC statements executed by %s", context.getDisplayName())
+                    .isLessThanOrEqualTo(max.get().value());
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == StatementCounter.Scope.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return scope(extensionContext);
+    }
+
+    private StatementCounter.Scope scope(ExtensionContext context) {
+        return context.getStore(NAMESPACE).getOrComputeIfAbsent(context.getUniqueId(),
+                key -> StatementCounter.open(context.getDisplayName(), 0, false),
+                StatementCounter.Scope.class);
+    }
+}